@@ -0,0 +1,88 @@
+package com.bugsee;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.infra.ThreadParams;
+
+/**
+ * Attribute writes from several threads at once, routed through the
+ * AttributeCache to the recording SDK. Number of the resulting SDK calls is
+ * reported as the secondary "sdkCalls" result, so the effect of the
+ * write-behind delay is visible along with the throughput.
+ */
+@State(Scope.Benchmark)
+public class AttributeStormBenchmark {
+    private static final String[] KEYS = new String[16];
+
+    static {
+        for (int i = 0; i < KEYS.length; i++) {
+            KEYS[i] = "attribute" + i;
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Writer {
+        int sequence;
+    }
+
+    /**
+     * SDK calls are made by the shared cache rather than by the writers,
+     * hence the whole number is attributed to the first writer thread, as
+     * JMH sums the counters of all threads
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class SdkCalls {
+        public long sdkCalls;
+
+        private boolean reporter;
+        private long callsAtStart;
+
+        @Setup(Level.Iteration)
+        public void setUp(AttributeStormBenchmark benchmark, ThreadParams threadParams) {
+            reporter = threadParams.getThreadIndex() == 0;
+            callsAtStart = benchmark.sdk.getCalls("setAttribute");
+            sdkCalls = 0;
+        }
+
+        @TearDown(Level.Iteration)
+        public void tearDown(AttributeStormBenchmark benchmark) {
+            if (reporter) {
+                sdkCalls = benchmark.sdk.getCalls("setAttribute") - callsAtStart;
+            }
+        }
+    }
+
+    @Param({"0", "20"})
+    public long writeDelayMs;
+
+    private RecordingBugseeSdk sdk;
+    private AttributeCache attributeCache;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        sdk = new RecordingBugseeSdk();
+        attributeCache = new AttributeCache(sdk);
+        attributeCache.configure(writeDelayMs);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        // flushes whatever is still pending
+        attributeCache.configure(0);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public void setAttribute(Writer writer, SdkCalls sdkCalls) {
+        int sequence = writer.sequence++;
+        attributeCache.set(KEYS[sequence & (KEYS.length - 1)], sequence);
+    }
+}
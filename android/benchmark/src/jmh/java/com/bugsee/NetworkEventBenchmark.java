@@ -0,0 +1,93 @@
+package com.bugsee;
+
+import com.bugsee.library.exchange.ExchangeNetworkEvent;
+import com.bugsee.library.network.data.BugseeNetworkEvent;
+import com.bugsee.library.network.data.NetworkEventType;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.nio.charset.Charset;
+import java.util.HashMap;
+import java.util.Map;
+
+import io.flutter.plugin.common.MethodCall;
+
+/**
+ * Network events conversion, as done by "registerNetworkEvent" and by the
+ * network filter in BugseePlugin. Events are registered through the same
+ * NetworkEventRegistrar the plugin uses, with the recording SDK on the
+ * other end.
+ */
+@State(Scope.Thread)
+public class NetworkEventBenchmark {
+    private NetworkEventRegistrar registrar;
+    private MethodCall textBodyCall;
+    private MethodCall bytesBodyCall;
+    private BugseeNetworkEvent filteredEvent;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        registrar = new NetworkEventRegistrar(new RecordingBugseeSdk(), new NetworkBodyDecoder());
+
+        StringBuilder body = new StringBuilder();
+        while (body.length() < 2 * 1024) {
+            body.append("{\"id\":").append(body.length()).append(",\"name\":\"item\"},");
+        }
+
+        HashMap<String, Object> textArguments = createEventArguments();
+        textArguments.put("body", body.toString());
+        textBodyCall = new MethodCall("registerNetworkEvent", textArguments);
+
+        HashMap<String, Object> bytesArguments = createEventArguments();
+        bytesArguments.put("bodyBytes", body.toString().getBytes(Charset.forName("UTF-8")));
+        bytesArguments.put("contentType", "application/json; charset=utf-8");
+        bytesBodyCall = new MethodCall("registerNetworkEvent", bytesArguments);
+
+        HashMap<String, Object> headers = new HashMap<>();
+        headers.put("content-type", "application/json");
+        headers.put("authorization", "Bearer token");
+        filteredEvent = new BugseeNetworkEvent();
+        filteredEvent.setUrl("https://api.example.com/v1/items?page=2");
+        filteredEvent.setMethod("GET");
+        filteredEvent.setEventType(NetworkEventType.Complete);
+        filteredEvent.setBody(body.toString());
+        filteredEvent.setHeaders(headers);
+    }
+
+    @Benchmark
+    public ExchangeNetworkEvent registerNetworkEvent() {
+        return registrar.register(textBodyCall.<Map<String, Object>>arguments());
+    }
+
+    @Benchmark
+    public ExchangeNetworkEvent registerNetworkEventBytes() {
+        return registrar.register(bytesBodyCall.<Map<String, Object>>arguments());
+    }
+
+    @Benchmark
+    public HashMap<String, Object> filterNetworkEvent() {
+        return NetworkEventCodec.toMap(filteredEvent);
+    }
+
+    private static HashMap<String, Object> createEventArguments() {
+        HashMap<String, String> headers = new HashMap<>();
+        headers.put("content-type", "application/json");
+        headers.put("content-length", "2048");
+
+        HashMap<String, Object> arguments = new HashMap<>();
+        arguments.put("id", "3f2b9c2e-8d1a-4c6b-9e0f-1a2b3c4d5e6f");
+        arguments.put("type", "complete");
+        arguments.put("timestamp", 1700000000000L);
+        arguments.put("method", "GET");
+        arguments.put("url", "https://api.example.com/v1/items?page=2");
+        arguments.put("size", 2048);
+        arguments.put("headers", headers);
+        arguments.put("isSupplement", false);
+        arguments.put("status", 200);
+        return arguments;
+    }
+}
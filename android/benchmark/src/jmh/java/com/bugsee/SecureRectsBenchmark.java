@@ -0,0 +1,105 @@
+package com.bugsee;
+
+import android.graphics.Rect;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.nio.IntBuffer;
+import java.util.HashMap;
+
+import io.flutter.plugin.common.MethodCall;
+
+/**
+ * Secure rectangles handling, as done by "setSecureRectsInternal" and
+ * "getAllSecureRects" in BugseePlugin. Updates go through the same
+ * SecureRectPipeline the plugin uses (without the orientation handling),
+ * with the recording SDK on the other end.
+ *
+ * Rectangles are laid out in a grid without overlaps, so merging doesn't
+ * collapse them and the SDK receives the same number of rectangles.
+ */
+@State(Scope.Thread)
+public class SecureRectsBenchmark {
+    // exceeds the jitter tolerance of SecureRectMap
+    private static final int MOVE_OFFSET = 8;
+    private static final int COLUMNS = 40;
+
+    @Param({"10", "100", "1000"})
+    public int rectCount;
+
+    private RecordingBugseeSdk sdk;
+    private SecureRectPipeline pipeline;
+
+    private MethodCall staticFrame;
+    private MethodCall[] movingFrames;
+    private int movingFrameIndex;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        sdk = new RecordingBugseeSdk();
+        pipeline = new SecureRectPipeline(sdk);
+
+        staticFrame = createFrame(0);
+        movingFrames = new MethodCall[] { createFrame(0), createFrame(MOVE_OFFSET) };
+
+        for (int i = 0; i < rectCount; i++) {
+            int x = (i % COLUMNS) * 60;
+            int y = (i / COLUMNS) * 40;
+            sdk.addSecureRectangle(new Rect(x, y, x + 40, y + 20));
+        }
+    }
+
+    /**
+     * Same geometry on every frame, e.g. static screen. Update is
+     * suppressed after the diff.
+     */
+    @Benchmark
+    public boolean setSecureRectsUnchanged() {
+        return setSecureRects(staticFrame);
+    }
+
+    /**
+     * Every rectangle moves on every frame, e.g. scrolling. Update is
+     * passed to the SDK.
+     */
+    @Benchmark
+    public boolean setSecureRectsMoving() {
+        movingFrameIndex ^= 1;
+        return setSecureRects(movingFrames[movingFrameIndex]);
+    }
+
+    @Benchmark
+    public Object getAllSecureRects() {
+        return SecureRectBuffer.toDartRects(sdk.getAllSecureRectangles());
+    }
+
+    private boolean setSecureRects(MethodCall call) {
+        int[] boundsData = call.argument("bounds");
+        pipeline.update(IntBuffer.wrap(boundsData), 0);
+        return pipeline.publish(false);
+    }
+
+    /**
+     * Creates the call with rectangles in [id, x, y, width, height] layout
+     */
+    private MethodCall createFrame(int offset) {
+        int[] bounds = new int[rectCount * 5];
+        for (int i = 0; i < rectCount; i++) {
+            int index = i * 5;
+            bounds[index] = i + 1;
+            bounds[index + 1] = (i % COLUMNS) * 60 + offset;
+            bounds[index + 2] = (i / COLUMNS) * 40;
+            bounds[index + 3] = 40;
+            bounds[index + 4] = 20;
+        }
+
+        HashMap<String, Object> arguments = new HashMap<>();
+        arguments.put("bounds", bounds);
+        return new MethodCall("setSecureRectsInternal", arguments);
+    }
+}
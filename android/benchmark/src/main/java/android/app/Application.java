@@ -0,0 +1,9 @@
+package android.app;
+
+import android.content.Context;
+
+/**
+ * Minimal stand-in of the Android class
+ */
+public class Application extends Context {
+}
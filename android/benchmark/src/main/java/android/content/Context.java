@@ -0,0 +1,7 @@
+package android.content;
+
+/**
+ * Minimal stand-in of the Android class
+ */
+public abstract class Context {
+}
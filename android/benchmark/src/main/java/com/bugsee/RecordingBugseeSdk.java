@@ -0,0 +1,540 @@
+package com.bugsee;
+
+import android.app.Activity;
+import android.app.Application;
+import android.content.Context;
+import android.graphics.Rect;
+
+import androidx.annotation.Nullable;
+
+import com.bugsee.library.attachment.CustomAttachment;
+import com.bugsee.library.attachment.ReportAttachmentsProvider;
+import com.bugsee.library.data.AdditionalDataCapture;
+import com.bugsee.library.data.IssueSeverity;
+import com.bugsee.library.events.BugseeLogLevel;
+import com.bugsee.library.exchange.ExchangeNetworkEvent;
+import com.bugsee.library.feedback.OnNewFeedbackListener;
+import com.bugsee.library.lifecycle.LifecycleEventListener;
+import com.bugsee.library.logs.BugseeLog;
+import com.bugsee.library.logs.LogFilter;
+import com.bugsee.library.logs.LogListener;
+import com.bugsee.library.network.NetworkEventFilter;
+import com.bugsee.library.network.NetworkEventListener;
+import com.bugsee.library.network.data.BugseeNetworkEvent;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-process stand-in of the SDK for load testing the plugin without a
+ * device. For every method it counts calls and approximate size of the
+ * arguments, state which the plugin reads back (attributes, email, secure
+ * rectangles, etc.) is kept in memory.
+ *
+ * Installed filters can be driven with synthetic events via
+ * {@link #dispatchNetworkEvent(BugseeNetworkEvent)} and
+ * {@link #dispatchLog(BugseeLog)}. Listeners handed to the filters can be
+ * slowed down with {@link #setListenerLatency(long)} to emulate the SDK
+ * side cost of accepting the filtered item.
+ *
+ * All methods can be called from any thread.
+ */
+final class RecordingBugseeSdk implements BugseeSdk {
+    private static final class MethodStats {
+        final AtomicLong calls = new AtomicLong();
+        final AtomicLong argumentBytes = new AtomicLong();
+    }
+
+    private final ConcurrentHashMap<String, MethodStats> methods = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, Object> attributes = new ConcurrentHashMap<>();
+    private final ArrayList<Rect> secureRectangles = new ArrayList<>();
+    private final Object appearance = new Object();
+
+    private final AtomicLong filtersDispatched = new AtomicLong();
+    private final AtomicLong filtersCompleted = new AtomicLong();
+    private final AtomicLong filtersDropped = new AtomicLong();
+
+    private volatile long listenerLatencyMicros = 0;
+    @Nullable
+    private volatile String email;
+    @Nullable
+    private volatile HashMap<String, Object> launchOptions;
+    @Nullable
+    private volatile List<Rect> secureRectsInternal;
+    @Nullable
+    private volatile NetworkEventFilter networkEventFilter;
+    @Nullable
+    private volatile LogFilter logFilter;
+    @Nullable
+    private volatile ReportAttachmentsProvider reportAttachmentsProvider;
+    @Nullable
+    private volatile OnNewFeedbackListener onNewFeedbackListener;
+    @Nullable
+    private volatile LifecycleEventListener lifecycleEventListener;
+    @Nullable
+    private volatile AdditionalDataCapture additionalDataCapture;
+
+    private final NetworkEventListener networkEventListener = new NetworkEventListener() {
+        @Override
+        public void onEvent(BugseeNetworkEvent event) {
+            completeFilter(event == null);
+        }
+    };
+
+    private final LogListener logListener = new LogListener() {
+        @Override
+        public void onLog(BugseeLog log) {
+            completeFilter(log == null);
+        }
+    };
+
+    // region Load generation
+
+    /**
+     * @param latencyMicros time each filter listener call blocks the calling
+     *                      thread for, zero disables the latency
+     */
+    public void setListenerLatency(long latencyMicros) {
+        listenerLatencyMicros = latencyMicros;
+    }
+
+    /**
+     * Passes the event through the installed network filter, as SDK does
+     * for each captured request
+     *
+     * @return false if no filter is installed
+     */
+    public boolean dispatchNetworkEvent(BugseeNetworkEvent event) {
+        NetworkEventFilter filter = networkEventFilter;
+        if (filter == null) {
+            return false;
+        }
+
+        filtersDispatched.incrementAndGet();
+        filter.filter(event, networkEventListener);
+        return true;
+    }
+
+    /**
+     * Passes the log line through the installed log filter, as SDK does for
+     * each captured line
+     *
+     * @return false if no filter is installed
+     */
+    public boolean dispatchLog(BugseeLog log) {
+        LogFilter filter = logFilter;
+        if (filter == null) {
+            return false;
+        }
+
+        filtersDispatched.incrementAndGet();
+        filter.filter(log, logListener);
+        return true;
+    }
+
+    /**
+     * @return number of items which were passed to the filters, but were not
+     *         handed back to the listeners yet
+     */
+    public long getPendingFilters() {
+        return filtersDispatched.get() - filtersCompleted.get();
+    }
+
+    public long getCalls(String method) {
+        MethodStats stats = methods.get(method);
+        return (stats != null) ? stats.calls.get() : 0;
+    }
+
+    @Nullable
+    public List<Rect> getSecureRectsInternal() {
+        return secureRectsInternal;
+    }
+
+    @Nullable
+    public ReportAttachmentsProvider getReportAttachmentsProvider() {
+        return reportAttachmentsProvider;
+    }
+
+    @Nullable
+    public OnNewFeedbackListener getOnNewFeedbackListener() {
+        return onNewFeedbackListener;
+    }
+
+    @Nullable
+    public LifecycleEventListener getLifecycleEventListener() {
+        return lifecycleEventListener;
+    }
+
+    @Nullable
+    public AdditionalDataCapture getAdditionalDataCapture() {
+        return additionalDataCapture;
+    }
+
+    /**
+     * Creates snapshot of all the counters. Snapshot is not atomic as a whole
+     */
+    public HashMap<String, Object> snapshot() {
+        HashMap<String, Object> calls = new HashMap<>();
+        for (Map.Entry<String, MethodStats> entry : methods.entrySet()) {
+            HashMap<String, Object> values = new HashMap<>();
+            values.put("calls", entry.getValue().calls.get());
+            values.put("argumentBytes", entry.getValue().argumentBytes.get());
+            calls.put(entry.getKey(), values);
+        }
+
+        HashMap<String, Object> filters = new HashMap<>();
+        filters.put("dispatched", filtersDispatched.get());
+        filters.put("completed", filtersCompleted.get());
+        filters.put("dropped", filtersDropped.get());
+
+        HashMap<String, Object> result = new HashMap<>();
+        result.put("calls", calls);
+        result.put("filters", filters);
+        return result;
+    }
+
+    public void reset() {
+        methods.clear();
+        filtersDispatched.set(0);
+        filtersCompleted.set(0);
+        filtersDropped.set(0);
+    }
+
+    // endregion
+
+    // region Lifecycle
+
+    @Override
+    public void launch(Activity activity, String appToken, @Nullable HashMap<String, Object> launchOptions) {
+        record("launch", appToken, launchOptions);
+        this.launchOptions = launchOptions;
+    }
+
+    @Override
+    public void launch(Application application, String appToken, @Nullable HashMap<String, Object> launchOptions) {
+        record("launch", appToken, launchOptions);
+        this.launchOptions = launchOptions;
+    }
+
+    @Override
+    public void relaunch(@Nullable HashMap<String, Object> launchOptions) {
+        record("relaunch", launchOptions);
+        if (launchOptions != null) {
+            this.launchOptions = launchOptions;
+        }
+    }
+
+    @Override
+    public void stop() {
+        record("stop");
+    }
+
+    @Override
+    public void pause() {
+        record("pause");
+    }
+
+    @Override
+    public void resume() {
+        record("resume");
+    }
+
+    // endregion
+
+    // region Telemetry
+
+    @Override
+    public void event(String name) {
+        record("event", name);
+    }
+
+    @Override
+    public void event(String name, HashMap<String, Object> parameters) {
+        record("event", name, parameters);
+    }
+
+    @Override
+    public void trace(String name, Object value) {
+        record("trace", name, value);
+    }
+
+    @Override
+    public void log(String text, BugseeLogLevel level) {
+        record("log", text);
+    }
+
+    @Override
+    public void addNetworkEvent(ExchangeNetworkEvent event) {
+        record("addNetworkEvent", event.url, event.body, event.headers);
+    }
+
+    // endregion
+
+    // region Attributes
+
+    @Override
+    public void setAttribute(String key, @Nullable Object value) {
+        record("setAttribute", key, value);
+        if (value != null) {
+            attributes.put(key, value);
+        } else {
+            attributes.remove(key);
+        }
+    }
+
+    @Nullable
+    @Override
+    public Object getAttribute(String key) {
+        record("getAttribute", key);
+        return attributes.get(key);
+    }
+
+    @Override
+    public void clearAttribute(String key) {
+        record("clearAttribute", key);
+        attributes.remove(key);
+    }
+
+    @Override
+    public void clearAllAttributes() {
+        record("clearAllAttributes");
+        attributes.clear();
+    }
+
+    @Override
+    public void setEmail(@Nullable String email) {
+        record("setEmail", email);
+        this.email = email;
+    }
+
+    @Nullable
+    @Override
+    public String getEmail() {
+        record("getEmail");
+        return email;
+    }
+
+    // endregion
+
+    // region Reports and feedback
+
+    @Override
+    public void logException(Exception exception) {
+        record("logException", exception.getMessage());
+    }
+
+    @Override
+    public void onUncaughtException(Thread thread, Throwable throwable) {
+        record("onUncaughtException", throwable.getMessage());
+    }
+
+    @Override
+    public void upload(String summary, String description, IssueSeverity severity, ArrayList<String> labels) {
+        record("upload", summary, description, labels);
+    }
+
+    @Override
+    public void showReportDialog(String summary, String description, IssueSeverity severity,
+            ArrayList<String> labels) {
+        record("showReportDialog", summary, description, labels);
+    }
+
+    @Override
+    public void showFeedbackActivity(@Nullable Context context) {
+        record("showFeedbackActivity");
+    }
+
+    @Override
+    public void setDefaultFeedbackGreeting(String greeting) {
+        record("setDefaultFeedbackGreeting", greeting);
+    }
+
+    @Nullable
+    @Override
+    public HashMap<String, Object> getLaunchOptions() {
+        record("getLaunchOptions");
+        return launchOptions;
+    }
+
+    @Override
+    public void setAttachments(ArrayList<CustomAttachment> attachments) {
+        record("setAttachments", attachments.size());
+    }
+
+    @Override
+    public void setAttachmentsAsync(boolean isAsync) {
+        record("setAttachmentsAsync", isAsync);
+    }
+
+    // endregion
+
+    // region Secure rectangles
+
+    @Override
+    public void addSecureRectangle(Rect rectangle) {
+        record("addSecureRectangle", rectangle);
+        synchronized (secureRectangles) {
+            secureRectangles.add(rectangle);
+        }
+    }
+
+    @Override
+    public void removeSecureRectangle(Rect rectangle) {
+        record("removeSecureRectangle", rectangle);
+        synchronized (secureRectangles) {
+            for (int i = secureRectangles.size() - 1; i >= 0; i--) {
+                Rect existing = secureRectangles.get(i);
+                if (existing.left == rectangle.left && existing.top == rectangle.top
+                        && existing.right == rectangle.right && existing.bottom == rectangle.bottom) {
+                    secureRectangles.remove(i);
+                }
+            }
+        }
+    }
+
+    @Override
+    public void removeAllSecureRectangles() {
+        record("removeAllSecureRectangles");
+        synchronized (secureRectangles) {
+            secureRectangles.clear();
+        }
+    }
+
+    @Override
+    public ArrayList<Rect> getAllSecureRectangles() {
+        record("getAllSecureRectangles");
+        synchronized (secureRectangles) {
+            return new ArrayList<>(secureRectangles);
+        }
+    }
+
+    @Override
+    public void setSecureRectsInternal(@Nullable List<Rect> rectangles) {
+        record("setSecureRectsInternal", rectangles);
+        secureRectsInternal = rectangles;
+    }
+
+    // endregion
+
+    // region Appearance
+
+    @Override
+    public Object getAppearance() {
+        record("getAppearance");
+        return appearance;
+    }
+
+    // endregion
+
+    // region Callbacks
+
+    @Override
+    public void setNetworkEventFilter(NetworkEventFilter filter) {
+        record("setNetworkEventFilter");
+        networkEventFilter = filter;
+    }
+
+    @Override
+    public void setLogFilter(LogFilter filter) {
+        record("setLogFilter");
+        logFilter = filter;
+    }
+
+    @Override
+    public void setReportAttachmentsProvider(ReportAttachmentsProvider provider) {
+        record("setReportAttachmentsProvider");
+        reportAttachmentsProvider = provider;
+    }
+
+    @Override
+    public void setOnNewFeedbackListener(OnNewFeedbackListener listener) {
+        record("setOnNewFeedbackListener");
+        onNewFeedbackListener = listener;
+    }
+
+    @Override
+    public void setLifecycleEventsListener(LifecycleEventListener listener) {
+        record("setLifecycleEventsListener");
+        lifecycleEventListener = listener;
+    }
+
+    @Override
+    public void setAdditionalDataCapture(AdditionalDataCapture capture) {
+        record("setAdditionalDataCapture");
+        additionalDataCapture = capture;
+    }
+
+    // endregion
+
+    // region Internals
+
+    @Override
+    public void stopInternal(boolean release) {
+        record("stopInternal", release);
+    }
+
+    @Override
+    public void logWarning(String tag, String message, boolean report) {
+        record("logWarning", tag, message);
+    }
+
+    // endregion
+
+    private void record(String method, Object... arguments) {
+        long argumentBytes = 0;
+        for (Object argument : arguments) {
+            argumentBytes += estimateSize(argument);
+        }
+
+        MethodStats stats = methods.get(method);
+        if (stats == null) {
+            MethodStats newStats = new MethodStats();
+            stats = methods.putIfAbsent(method, newStats);
+            if (stats == null) {
+                stats = newStats;
+            }
+        }
+
+        stats.calls.incrementAndGet();
+        stats.argumentBytes.addAndGet(argumentBytes);
+    }
+
+    private void completeFilter(boolean dropped) {
+        long latencyMicros = listenerLatencyMicros;
+        if (latencyMicros > 0) {
+            try {
+                TimeUnit.MICROSECONDS.sleep(latencyMicros);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        if (dropped) {
+            filtersDropped.incrementAndGet();
+        }
+        filtersCompleted.incrementAndGet();
+    }
+
+    /**
+     * Same estimation as for the values passed through the bridge, plus
+     * the rectangles which are passed as four ints
+     */
+    private static long estimateSize(Object value) {
+        if (value instanceof Rect) {
+            return 16;
+        } else if (value instanceof List) {
+            long size = 0;
+            for (Object item : (List<?>) value) {
+                size += estimateSize(item);
+            }
+            return size;
+        }
+
+        return BridgeStats.estimateSize(value);
+    }
+}
@@ -0,0 +1,7 @@
+package com.bugsee.library.attachment;
+
+/**
+ * Minimal stand-in of the SDK class
+ */
+public class Report {
+}
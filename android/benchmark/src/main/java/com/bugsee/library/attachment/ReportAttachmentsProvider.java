@@ -0,0 +1,10 @@
+package com.bugsee.library.attachment;
+
+import java.util.ArrayList;
+
+/**
+ * Minimal stand-in of the SDK interface
+ */
+public interface ReportAttachmentsProvider {
+    ArrayList<CustomAttachment> getAttachments(Report report);
+}
@@ -0,0 +1,8 @@
+package com.bugsee.library.data;
+
+/**
+ * Minimal stand-in of the SDK interface
+ */
+public interface AdditionalDataCaptureCallback {
+    void onAdditionalDataCaptured(String data);
+}
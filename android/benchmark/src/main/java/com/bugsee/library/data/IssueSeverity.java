@@ -0,0 +1,12 @@
+package com.bugsee.library.data;
+
+/**
+ * Minimal stand-in of the SDK enum
+ */
+public enum IssueSeverity {
+    VeryLow,
+    Low,
+    Medium,
+    High,
+    Blocker
+}
@@ -0,0 +1,32 @@
+package com.bugsee.library.events;
+
+/**
+ * Minimal stand-in of the SDK enum. Int values match the level indices
+ * used on the Dart side
+ */
+public enum BugseeLogLevel {
+    Error(1),
+    Warning(2),
+    Info(3),
+    Debug(4),
+    Verbose(5);
+
+    private final int intValue;
+
+    BugseeLogLevel(int intValue) {
+        this.intValue = intValue;
+    }
+
+    public int getIntValue() {
+        return intValue;
+    }
+
+    public static BugseeLogLevel fromIntValue(int value) {
+        for (BugseeLogLevel level : values()) {
+            if (level.intValue == value) {
+                return level;
+            }
+        }
+        return Info;
+    }
+}
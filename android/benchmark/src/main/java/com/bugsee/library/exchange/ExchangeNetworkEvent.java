@@ -0,0 +1,20 @@
+package com.bugsee.library.exchange;
+
+import java.util.Map;
+
+/**
+ * Minimal stand-in of the SDK class
+ */
+public class ExchangeNetworkEvent {
+    public String id;
+    public String type;
+    public long timestamp;
+    public String method;
+    public String url;
+    public long size;
+    public String body;
+    public Map<String, String> headers;
+    public boolean isSupplement;
+    public int status;
+    public String error;
+}
@@ -0,0 +1,10 @@
+package com.bugsee.library.feedback;
+
+import java.util.List;
+
+/**
+ * Minimal stand-in of the SDK interface
+ */
+public interface OnNewFeedbackListener {
+    void onNewFeedback(List<String> messages);
+}
@@ -0,0 +1,8 @@
+package com.bugsee.library.lifecycle;
+
+/**
+ * Minimal stand-in of the SDK interface
+ */
+public interface LifecycleEventListener {
+    void onEvent(LifecycleEventTypes eventType);
+}
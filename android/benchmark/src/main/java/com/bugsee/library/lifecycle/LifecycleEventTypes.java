@@ -0,0 +1,10 @@
+package com.bugsee.library.lifecycle;
+
+/**
+ * Minimal stand-in of the SDK enum
+ */
+public enum LifecycleEventTypes {
+    Launched,
+    Started,
+    Stopped
+}
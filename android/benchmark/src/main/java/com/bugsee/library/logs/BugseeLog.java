@@ -0,0 +1,27 @@
+package com.bugsee.library.logs;
+
+import com.bugsee.library.events.BugseeLogLevel;
+
+/**
+ * Minimal stand-in of the SDK class
+ */
+public class BugseeLog {
+    private String message;
+    private BugseeLogLevel level;
+
+    public String getMessage() {
+        return message;
+    }
+
+    public void setMessage(String message) {
+        this.message = message;
+    }
+
+    public BugseeLogLevel getLevel() {
+        return level;
+    }
+
+    public void setLevel(BugseeLogLevel level) {
+        this.level = level;
+    }
+}
@@ -0,0 +1,8 @@
+package com.bugsee.library.logs;
+
+/**
+ * Minimal stand-in of the SDK interface
+ */
+public interface LogFilter {
+    void filter(BugseeLog log, LogListener listener);
+}
@@ -0,0 +1,8 @@
+package com.bugsee.library.logs;
+
+/**
+ * Minimal stand-in of the SDK interface
+ */
+public interface LogListener {
+    void onLog(BugseeLog log);
+}
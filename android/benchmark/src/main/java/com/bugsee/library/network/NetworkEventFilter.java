@@ -0,0 +1,10 @@
+package com.bugsee.library.network;
+
+import com.bugsee.library.network.data.BugseeNetworkEvent;
+
+/**
+ * Minimal stand-in of the SDK interface
+ */
+public interface NetworkEventFilter {
+    void filter(BugseeNetworkEvent event, NetworkEventListener listener);
+}
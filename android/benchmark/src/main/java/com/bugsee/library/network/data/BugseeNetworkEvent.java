@@ -0,0 +1,54 @@
+package com.bugsee.library.network.data;
+
+import java.util.Map;
+
+/**
+ * Minimal stand-in of the SDK class
+ */
+public class BugseeNetworkEvent {
+    private String url;
+    private String body;
+    private String method;
+    private NetworkEventType eventType;
+    private Map<String, Object> headers;
+
+    public String getUrl() {
+        return url;
+    }
+
+    public void setUrl(String url) {
+        this.url = url;
+    }
+
+    public String getBody() {
+        return body;
+    }
+
+    public void setBody(String body) {
+        this.body = body;
+    }
+
+    public String getMethod() {
+        return method;
+    }
+
+    public void setMethod(String method) {
+        this.method = method;
+    }
+
+    public NetworkEventType getEventType() {
+        return eventType;
+    }
+
+    public void setEventType(NetworkEventType eventType) {
+        this.eventType = eventType;
+    }
+
+    public Map<String, Object> getHeaders() {
+        return headers;
+    }
+
+    public void setHeaders(Map<String, Object> headers) {
+        this.headers = headers;
+    }
+}
@@ -0,0 +1,9 @@
+package com.bugsee.library.network.data;
+
+/**
+ * Minimal stand-in of the SDK enum
+ */
+public enum NetworkEventType {
+    Before,
+    Complete
+}
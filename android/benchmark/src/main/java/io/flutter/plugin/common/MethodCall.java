@@ -0,0 +1,31 @@
+package io.flutter.plugin.common;
+
+import java.util.Map;
+
+/**
+ * Minimal stand-in of the Flutter class. Arguments are expected to be
+ * either a map or null, as with the standard method codec.
+ */
+public final class MethodCall {
+    public final String method;
+    public final Object arguments;
+
+    public MethodCall(String method, Object arguments) {
+        this.method = method;
+        this.arguments = arguments;
+    }
+
+    @SuppressWarnings("unchecked")
+    public <T> T arguments() {
+        return (T) arguments;
+    }
+
+    @SuppressWarnings("unchecked")
+    public <T> T argument(String key) {
+        if (arguments == null) {
+            return null;
+        }
+
+        return (T) ((Map<?, ?>) arguments).get(key);
+    }
+}
@@ -0,0 +1,20 @@
+package io.flutter.plugin.common;
+
+import androidx.annotation.Nullable;
+
+/**
+ * Minimal stand-in of the Flutter class, only the reply interface is used
+ * by the plugin code compiled here.
+ */
+public final class MethodChannel {
+    private MethodChannel() {
+    }
+
+    public interface Result {
+        void success(@Nullable Object result);
+
+        void error(String errorCode, @Nullable String errorMessage, @Nullable Object errorDetails);
+
+        void notImplemented();
+    }
+}
@@ -0,0 +1,69 @@
+package com.bugsee;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+
+public class AttachmentStoreTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void discardingReportDiscardsItsUnfinishedStreams() throws IOException {
+        AttachmentStore store = createStore();
+        int reportId = store.beginReport();
+        int otherReportId = store.beginReport();
+
+        int finishedStreamId = store.beginStream(reportId);
+        int unfinishedStreamId = store.beginStream(reportId);
+        int otherStreamId = store.beginStream(otherReportId);
+        store.appendToStream(finishedStreamId, new byte[] { 1, 2, 3 });
+        File finishedFile = store.finishStream(finishedStreamId);
+
+        store.discardReport(reportId);
+
+        // finished file belongs to the SDK now
+        assertNotNull(finishedFile);
+        assertEquals(3, finishedFile.length());
+        assertFalse(store.appendToStream(unfinishedStreamId, new byte[] { 1 }));
+        assertNull(store.finishStream(unfinishedStreamId));
+        assertEquals(2, countFiles());
+
+        assertNotNull(store.finishStream(otherStreamId));
+    }
+
+    @Test
+    public void streamsCantBeBegunForCompletedReport() throws IOException {
+        AttachmentStore store = createStore();
+        int reportId = store.beginReport();
+        store.discardReport(reportId);
+
+        try {
+            store.beginStream(reportId);
+            fail("Stream was begun for completed report");
+        } catch (IOException e) {
+            // expected
+        }
+        assertEquals(0, countFiles());
+    }
+
+    private AttachmentStore createStore() {
+        AttachmentStore store = new AttachmentStore();
+        store.setCacheDirectory(folder.getRoot());
+        return store;
+    }
+
+    private int countFiles() {
+        File[] files = new File(folder.getRoot(), "bugsee_attachments").listFiles();
+        return (files != null) ? files.length : 0;
+    }
+}
@@ -0,0 +1,70 @@
+package com.bugsee;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class AttributeCacheTest {
+    // long enough for the scheduled flush to never happen during the test
+    private static final long WRITE_DELAY_MS = 60000;
+
+    @Test
+    public void disablingNeverOverwritesDirectWrites() throws InterruptedException {
+        for (int attempt = 0; attempt < 2000; attempt++) {
+            RecordingBugseeSdk sdk = new RecordingBugseeSdk();
+            final AttributeCache cache = new AttributeCache(sdk);
+            cache.configure(WRITE_DELAY_MS);
+
+            final int lastValue = 2000;
+            Thread writer = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    for (int i = 0; i <= lastValue; i++) {
+                        cache.set("key", i);
+                    }
+                }
+            });
+            writer.start();
+            Thread.sleep(0, 100000 * (attempt % 10));
+            cache.configure(0);
+            writer.join();
+
+            assertEquals(lastValue, sdk.getAttribute("key"));
+        }
+    }
+
+    @Test
+    public void shutdownAppliesPendingWrites() {
+        RecordingBugseeSdk sdk = new RecordingBugseeSdk();
+        AttributeCache cache = new AttributeCache(sdk);
+        cache.configure(WRITE_DELAY_MS);
+
+        cache.set("key", "cached");
+        assertEquals(null, sdk.getAttribute("key"));
+        cache.shutdown();
+        assertEquals("cached", sdk.getAttribute("key"));
+
+        // cache is disabled afterwards
+        cache.set("key", "direct");
+        assertEquals("direct", sdk.getAttribute("key"));
+    }
+
+    @Test
+    public void invalidateForgetsValuesServedFromMemory() {
+        RecordingBugseeSdk sdk = new RecordingBugseeSdk();
+        AttributeCache cache = new AttributeCache(sdk);
+        cache.configure(WRITE_DELAY_MS);
+
+        cache.set("key", "cached");
+        cache.invalidate();
+        assertEquals("cached", sdk.getAttribute("key"));
+
+        // e.g. SDK was relaunched and lost its attributes
+        sdk.clearAllAttributes();
+        assertEquals(null, cache.get("key"));
+
+        cache.set("key", "pending");
+        assertEquals("pending", cache.get("key"));
+        cache.shutdown();
+    }
+}
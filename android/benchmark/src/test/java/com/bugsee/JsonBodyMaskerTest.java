@@ -0,0 +1,95 @@
+package com.bugsee;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.assertEquals;
+
+public class JsonBodyMaskerTest {
+    private static final String REPLACEMENT = "<redacted>";
+
+    @Test
+    public void masksSelectedValuesOnly() {
+        JsonBodyMasker masker = create("$.user.password");
+
+        assertEquals("{\"user\": {\"name\": \"john\", \"password\": \"<redacted>\"}}",
+                masker.mask("{\"user\": {\"name\": \"john\", \"password\": \"secret\"}}"));
+    }
+
+    @Test
+    public void masksKeysWrittenWithEscapes() {
+        JsonBodyMasker masker = create("password");
+
+        assertEquals("{\"pass\\u0077ord\":\"<redacted>\"}", masker.mask("{\"pass\\u0077ord\":\"secret\"}"));
+        assertEquals("{\"a\\\"b\":\"<redacted>\"}", create("$['a\"b']").mask("{\"a\\\"b\":1}"));
+    }
+
+    @Test
+    public void masksDescendantsAtAnyDepth() {
+        JsonBodyMasker masker = create("$..token");
+
+        assertEquals("{\"token\":\"<redacted>\",\"a\":{\"b\":[{\"token\":\"<redacted>\"}]}}",
+                masker.mask("{\"token\":1,\"a\":{\"b\":[{\"token\":{\"x\":2}}]}}"));
+    }
+
+    @Test
+    public void masksAllArrayElements() {
+        assertEquals("{\"cards\":[{\"number\":\"<redacted>\",\"type\":\"visa\"},{\"number\":\"<redacted>\"}]}",
+                create("$.cards[*].number").mask("{\"cards\":[{\"number\":1,\"type\":\"visa\"},{\"number\":2}]}"));
+        assertEquals("[\"<redacted>\",\"<redacted>\"]", create("$[*]").mask("[1,{\"a\":2}]"));
+        // wildcard index doesn't match object members
+        assertEquals("{\"a\":1}", create("$[*]").mask("{\"a\":1}"));
+    }
+
+    @Test
+    public void replacesTruncatedBodies() {
+        JsonBodyMasker masker = create("password");
+        String body = "{\"name\":\"john\",\"items\":[1,2,3],\"password\":\"secret\"}";
+
+        for (int length = 1; length < body.length(); length++) {
+            assertEquals(body.substring(0, length), REPLACEMENT, masker.mask(body.substring(0, length)));
+        }
+        assertEquals(REPLACEMENT, masker.mask("{\"a\":tr"));
+    }
+
+    @Test
+    public void replacesMalformedBodies() {
+        JsonBodyMasker masker = create("password");
+
+        assertEquals(REPLACEMENT, masker.mask("{\"password\" \"secret\"}"));
+        assertEquals(REPLACEMENT, masker.mask("{\"a\":1}{\"password\":\"secret\"}"));
+        assertEquals(REPLACEMENT, masker.mask("{\"a\":1 \"password\":\"secret\"}"));
+        assertEquals(REPLACEMENT, masker.mask("{\"pass\\qword\":\"secret\"}"));
+        assertEquals(REPLACEMENT, masker.mask("{\"a\":secret}"));
+    }
+
+    @Test
+    public void replacesBodiesWhichAreNotObjectsOrArrays() {
+        JsonBodyMasker masker = create("password");
+
+        assertEquals(REPLACEMENT, masker.mask("\"password=secret\""));
+        assertEquals(REPLACEMENT, masker.mask("password=secret"));
+        assertEquals("", masker.mask(""));
+        assertEquals("  ", masker.mask("  "));
+    }
+
+    @Test
+    public void replacesBodiesNestedTooDeep() {
+        JsonBodyMasker masker = create("password");
+        StringBuilder body = new StringBuilder();
+        for (int i = 0; i < 300; i++) {
+            body.append("{\"a\":");
+        }
+        body.append("{\"password\":\"secret\"}");
+        for (int i = 0; i < 300; i++) {
+            body.append('}');
+        }
+
+        assertEquals(REPLACEMENT, masker.mask(body.toString()));
+    }
+
+    private static JsonBodyMasker create(String path) {
+        return JsonBodyMasker.create(Arrays.asList(path), REPLACEMENT);
+    }
+}
@@ -0,0 +1,60 @@
+package com.bugsee;
+
+import com.bugsee.library.network.data.BugseeNetworkEvent;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+
+public class NetworkRedactionRulesTest {
+    @Test
+    public void masksJsonBodiesOnly() {
+        NetworkRedactionRules rules = create();
+
+        assertEquals(" {\"password\":\"<redacted>\"}", redactBody(rules, null, " {\"password\":\"secret\"}"));
+        assertEquals("<html>password</html>", redactBody(rules, "text/html", "<html>password</html>"));
+        assertEquals("password=secret", redactBody(rules, null, "password=secret"));
+    }
+
+    @Test
+    public void treatsJsonContentTypeBodiesAsJson() {
+        NetworkRedactionRules rules = create();
+
+        // JSON which can't be scanned is replaced as a whole
+        assertEquals("<redacted>", redactBody(rules, "application/json; charset=utf-8", "password=secret"));
+        assertEquals("<redacted>", redactBody(rules, "application/vnd.api+json", "\"secret\""));
+    }
+
+    @Test
+    public void truncatesNonJsonBodies() {
+        HashMap<String, Object> data = new HashMap<>();
+        data.put("bodyPaths", Arrays.asList("password"));
+        data.put("maxBodyLength", 4);
+        NetworkRedactionRules rules = NetworkRedactionRules.fromMap(data);
+
+        assertEquals(4, redactBody(rules, "text/plain", "password=secret").length());
+    }
+
+    private static NetworkRedactionRules create() {
+        HashMap<String, Object> data = new HashMap<>();
+        data.put("bodyPaths", Arrays.asList("password"));
+        return NetworkRedactionRules.fromMap(data);
+    }
+
+    private static String redactBody(NetworkRedactionRules rules, String contentType, String body) {
+        BugseeNetworkEvent event = new BugseeNetworkEvent();
+        event.setUrl("https://example.com");
+        if (contentType != null) {
+            Map<String, Object> headers = new HashMap<>();
+            headers.put("Content-Type", contentType);
+            event.setHeaders(headers);
+        }
+        event.setBody(body);
+        rules.apply(event);
+        return event.getBody();
+    }
+}
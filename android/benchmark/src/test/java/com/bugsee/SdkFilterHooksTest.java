@@ -0,0 +1,285 @@
+package com.bugsee;
+
+import com.bugsee.library.events.BugseeLogLevel;
+import com.bugsee.library.logs.BugseeLog;
+import com.bugsee.library.network.data.BugseeNetworkEvent;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import io.flutter.plugin.common.MethodChannel.Result;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class SdkFilterHooksTest {
+    @Test
+    public void sendsEventsOfferedBeforeFlushInOneBatch() {
+        Harness harness = new Harness();
+
+        harness.dispatchNetworkEvents(3);
+        assertTrue(harness.host.calls.isEmpty());
+        harness.scheduler.runPosted();
+        harness.dispatchNetworkEvents(1);
+        harness.scheduler.runPosted();
+
+        assertEquals(2, harness.host.calls.size());
+        assertEquals("onNetworkEvents", harness.host.calls.get(0).method);
+        assertEquals(3, harness.host.calls.get(0).arguments.size());
+        assertEquals(1, harness.host.calls.get(1).arguments.size());
+        assertEquals(4, harness.sdk.getPendingFilters());
+
+        harness.host.calls.get(0).replyWithArguments();
+        harness.host.calls.get(1).callback.success(null);
+
+        assertEquals(0, harness.sdk.getPendingFilters());
+        assertEquals(1L, harness.filterCounter("dropped"));
+        assertEquals(0, harness.hooks.getNetworkWindow().snapshot().get("inFlight"));
+    }
+
+    @Test
+    public void appliesOverflowPolicyWhenWindowIsFull() {
+        Harness harness = new Harness();
+        harness.hooks.getNetworkWindow().configure(2, 0, CallbackWindow.POLICY_DROP);
+
+        harness.dispatchNetworkEvents(3);
+        // third event is handled right away, without waiting for Dart
+        assertEquals(1L, harness.filterCounter("dropped"));
+        assertEquals(1L, harness.filterCounter("completed"));
+
+        harness.scheduler.runPosted();
+        assertEquals(1, harness.host.calls.size());
+        assertEquals(2, harness.host.calls.get(0).arguments.size());
+        assertEquals(1L, harness.hooks.getNetworkWindow().snapshot().get("overflowed"));
+    }
+
+    @Test
+    public void appliesOverflowPolicyAtDeadlineAndIgnoresLateReply() {
+        Harness harness = new Harness();
+        harness.hooks.getNetworkWindow().configure(0, 100, CallbackWindow.POLICY_REDACT_ALL);
+
+        List<BugseeNetworkEvent> events = harness.dispatchNetworkEvents(2);
+        harness.scheduler.runPosted();
+        harness.scheduler.advance(99);
+        assertEquals(2, harness.sdk.getPendingFilters());
+
+        harness.scheduler.advance(1);
+        assertEquals(0, harness.sdk.getPendingFilters());
+        assertEquals(0L, harness.filterCounter("dropped"));
+        assertEquals(2L, harness.hooks.getNetworkWindow().snapshot().get("timedOut"));
+        assertEquals("https://example.com/0", events.get(0).getUrl());
+        assertNull(events.get(0).getBody());
+
+        // late reply must not complete the events once again
+        harness.host.calls.get(0).callback.success(null);
+        assertEquals(2L, harness.filterCounter("completed"));
+        assertEquals(0L, harness.filterCounter("dropped"));
+        assertEquals(0, harness.hooks.getNetworkWindow().snapshot().get("inFlight"));
+    }
+
+    @Test
+    public void replyCancelsDeadline() {
+        Harness harness = new Harness();
+        harness.hooks.getNetworkWindow().configure(0, 100, CallbackWindow.POLICY_DROP);
+
+        harness.dispatchNetworkEvents(1);
+        harness.scheduler.runPosted();
+        harness.host.calls.get(0).callback.error("FAILED", null, null);
+
+        assertTrue(harness.scheduler.delayed.isEmpty());
+        harness.scheduler.advance(100);
+        assertEquals(1L, harness.filterCounter("completed"));
+        assertEquals(0L, harness.hooks.getNetworkWindow().snapshot().get("timedOut"));
+    }
+
+    @Test
+    public void dropsEventsWhenThereIsNoChannel() {
+        Harness harness = new Harness();
+        harness.host.hasChannel = false;
+
+        harness.dispatchNetworkEvents(2);
+        harness.scheduler.runPosted();
+
+        assertTrue(harness.host.calls.isEmpty());
+        assertEquals(0, harness.sdk.getPendingFilters());
+        assertEquals(2L, harness.filterCounter("dropped"));
+    }
+
+    @Test
+    public void passesItemsThroughWhenCallbackIsNotSet() {
+        Harness harness = new Harness();
+        harness.host.activeCallbacks = 0;
+
+        harness.dispatchNetworkEvents(1);
+        harness.dispatchLog("message");
+
+        assertTrue(harness.scheduler.posted.isEmpty());
+        assertEquals(0, harness.sdk.getPendingFilters());
+        assertEquals(0L, harness.filterCounter("dropped"));
+    }
+
+    @Test
+    public void appliesLogFilterReply() {
+        Harness harness = new Harness();
+
+        BugseeLog log = harness.dispatchLog("password=secret");
+        harness.scheduler.runPosted();
+
+        PendingCall call = harness.host.calls.get(0);
+        assertEquals("onLogEvents", call.method);
+        assertEquals(Arrays.<Object>asList("password=secret", BugseeLogLevel.Info.getIntValue()),
+                call.arguments.get(0));
+
+        call.callback.success(Collections.singletonList(
+                Arrays.<Object>asList("password=***", BugseeLogLevel.Warning.getIntValue())));
+
+        assertEquals(0, harness.sdk.getPendingFilters());
+        assertEquals("password=***", log.getMessage());
+        assertEquals(BugseeLogLevel.Warning, log.getLevel());
+    }
+
+    /**
+     * Runs posted tasks on demand and delayed ones according to the manual
+     * clock, the test thread acts as the UI thread
+     */
+    private static final class ManualScheduler implements UiScheduler {
+        final ArrayList<Runnable> posted = new ArrayList<>();
+        final ArrayList<Object[]> delayed = new ArrayList<>();
+        long nowMs = 0;
+
+        @Override
+        public void post(Runnable task) {
+            posted.add(task);
+        }
+
+        @Override
+        public void postDelayed(Runnable task, long delayMs) {
+            delayed.add(new Object[]{task, nowMs + delayMs});
+        }
+
+        @Override
+        public void cancel(Runnable task) {
+            for (int i = delayed.size() - 1; i >= 0; i--) {
+                if (delayed.get(i)[0] == task) {
+                    delayed.remove(i);
+                }
+            }
+        }
+
+        void runPosted() {
+            while (!posted.isEmpty()) {
+                posted.remove(0).run();
+            }
+        }
+
+        void advance(long ms) {
+            nowMs += ms;
+            for (int i = 0; i < delayed.size(); ) {
+                Object[] entry = delayed.get(i);
+                if ((Long) entry[1] <= nowMs) {
+                    delayed.remove(i);
+                    ((Runnable) entry[0]).run();
+                } else {
+                    i++;
+                }
+            }
+        }
+    }
+
+    /**
+     * Dart method invoked by the hooks, waiting for the reply
+     */
+    private static final class PendingCall {
+        final String method;
+        final List<Object> arguments;
+        final Result callback;
+
+        @SuppressWarnings("unchecked")
+        PendingCall(String method, Object arguments, Result callback) {
+            this.method = method;
+            this.arguments = (List<Object>) arguments;
+            this.callback = callback;
+        }
+
+        /**
+         * Replies the way Dart does when its filter keeps all the items
+         */
+        void replyWithArguments() {
+            callback.success(arguments);
+        }
+    }
+
+    /**
+     * Stands in for the plugin: records the Dart calls instead of sending
+     * them over the channel
+     */
+    private static final class RecordingHost implements SdkFilterHooks.Host {
+        final ArrayList<PendingCall> calls = new ArrayList<>();
+        volatile int activeCallbacks =
+                SdkFilterHooks.CALLBACK_NETWORK_EVENT | SdkFilterHooks.CALLBACK_LOG_EVENT;
+        boolean hasChannel = true;
+
+        @Override
+        public boolean isCallbackActive(int callbackBit) {
+            return (activeCallbacks & callbackBit) != 0;
+        }
+
+        @Override
+        public boolean invokeCallback(String method, Object arguments, Result callback) {
+            if (!hasChannel) {
+                return false;
+            }
+            calls.add(new PendingCall(method, arguments, callback));
+            return true;
+        }
+    }
+
+    /**
+     * Filters installed into the recording SDK the same way plugin installs
+     * them once the Dart callbacks are set
+     */
+    private static final class Harness {
+        final RecordingBugseeSdk sdk = new RecordingBugseeSdk();
+        final ManualScheduler scheduler = new ManualScheduler();
+        final RecordingHost host = new RecordingHost();
+        final SdkFilterHooks hooks = new SdkFilterHooks(sdk, scheduler, host);
+
+        Harness() {
+            hooks.installNetworkFilter();
+            hooks.installLogFilter();
+        }
+
+        List<BugseeNetworkEvent> dispatchNetworkEvents(int count) {
+            ArrayList<BugseeNetworkEvent> events = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                BugseeNetworkEvent event = new BugseeNetworkEvent();
+                event.setUrl("https://example.com/" + i + "?token=secret");
+                event.setBody("{\"token\":\"secret\"}");
+                event.setHeaders(new HashMap<String, Object>());
+                sdk.dispatchNetworkEvent(event);
+                events.add(event);
+            }
+            return events;
+        }
+
+        BugseeLog dispatchLog(String message) {
+            BugseeLog log = new BugseeLog();
+            log.setMessage(message);
+            log.setLevel(BugseeLogLevel.Info);
+            sdk.dispatchLog(log);
+            return log;
+        }
+
+        @SuppressWarnings("unchecked")
+        long filterCounter(String name) {
+            return (Long) ((Map<String, Object>) sdk.snapshot().get("filters")).get(name);
+        }
+    }
+}
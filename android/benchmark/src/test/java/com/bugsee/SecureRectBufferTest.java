@@ -0,0 +1,65 @@
+package com.bugsee;
+
+import android.graphics.Rect;
+
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertTrue;
+
+public class SecureRectBufferTest {
+    @Test
+    public void listHandedOutIsNeverChangedAfterwards() {
+        SecureRectBuffer buffer = new SecureRectBuffer();
+        int[] bounds = { 0, 0, 10, 10, 20, 20, 30, 30 };
+
+        List<Rect> first = buffer.fill(bounds, 2);
+        Rect firstRect = first.get(0);
+
+        // the caller's array is reused between updates as well
+        bounds[0] = 5;
+        bounds[2] = 15;
+        List<Rect> second = buffer.fill(bounds, 1);
+        List<Rect> third = buffer.fill(new int[] { 100, 100, 200, 200, 0, 0, 1, 1, 2, 2, 3, 3 }, 3);
+
+        assertEquals(2, first.size());
+        assertRect(first.get(0), 0, 0, 10, 10);
+        assertRect(first.get(1), 20, 20, 30, 30);
+        assertEquals(1, second.size());
+        assertRect(second.get(0), 5, 0, 15, 10);
+        assertEquals(3, third.size());
+
+        assertNotSame(first, third);
+        assertNotSame(firstRect, third.get(0));
+        assertNotSame(second.get(0), third.get(0));
+    }
+
+    @Test
+    public void matchesLastFilledRectangles() {
+        SecureRectBuffer buffer = new SecureRectBuffer();
+        int[] bounds = { 0, 0, 10, 10, 20, 20, 30, 30 };
+
+        assertFalse(buffer.matchesLast(bounds, 2));
+        buffer.fill(bounds, 2);
+        assertTrue(buffer.matchesLast(bounds.clone(), 2));
+        assertFalse(buffer.matchesLast(bounds, 1));
+
+        bounds[7] = 31;
+        assertFalse(buffer.matchesLast(bounds, 2));
+
+        buffer.fill(bounds, 2);
+        buffer.invalidate();
+        assertFalse(buffer.matchesLast(bounds, 2));
+    }
+
+    private static void assertRect(Rect rect, int left, int top, int right, int bottom) {
+        assertEquals(left, rect.left);
+        assertEquals(top, rect.top);
+        assertEquals(right, rect.right);
+        assertEquals(bottom, rect.bottom);
+    }
+}
@@ -0,0 +1,137 @@
+package com.bugsee;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class SecureRectMergerTest {
+    @Test
+    public void isDisabledByDefault() {
+        int[] bounds = { 0, 0, 10, 10, 5, 5, 15, 15 };
+
+        assertEquals(2, new SecureRectMerger().merge(bounds, 2));
+        assertArrayEquals(new int[] { 0, 0, 10, 10, 5, 5, 15, 15 }, bounds);
+    }
+
+    @Test
+    public void mergesOverlappingAndEdgeSharingRectangles() {
+        SecureRectMerger merger = createMerger(0);
+        int[] bounds = {
+                0, 0, 10, 10,
+                5, 5, 15, 15,     // overlaps the first one
+                15, 0, 20, 10,    // shares an edge with the second one
+                100, 100, 110, 110,
+        };
+
+        int count = merger.merge(bounds, 4);
+
+        assertEquals(2, count);
+        assertContainsRect(bounds, count, 0, 0, 20, 15);
+        assertContainsRect(bounds, count, 100, 100, 110, 110);
+    }
+
+    @Test
+    public void keepsRectanglesTouchingByCorner() {
+        SecureRectMerger merger = createMerger(0);
+        int[] bounds = { 0, 0, 10, 10, 10, 10, 20, 20 };
+
+        assertEquals(2, merger.merge(bounds, 2));
+    }
+
+    @Test
+    public void mergesRectanglesWhichStartTouchingAfterMerge() {
+        SecureRectMerger merger = createMerger(0);
+        // the last one touches only the union of the first two, and it's
+        // sorted before them by the left edge
+        int[] bounds = {
+                10, 0, 20, 10,
+                10, 10, 20, 20,
+                0, 15, 11, 30,
+        };
+
+        int count = merger.merge(bounds, 3);
+
+        assertEquals(1, count);
+        assertContainsRect(bounds, count, 0, 0, 20, 30);
+    }
+
+    @Test
+    public void mergesNearestRectanglesToMeetLimit() {
+        SecureRectMerger merger = createMerger(2);
+        // index order puts far apart rectangles next to each other
+        int[] bounds = {
+                0, 0, 10, 10,
+                1000, 1000, 1010, 1010,
+                0, 20, 10, 30,
+                1000, 0, 1010, 10,
+        };
+
+        int count = merger.merge(bounds, 4);
+
+        assertEquals(2, count);
+        assertContainsRect(bounds, count, 0, 0, 10, 30);
+        assertContainsRect(bounds, count, 1000, 0, 1010, 1010);
+    }
+
+    @Test
+    public void coversAllSourceRectanglesWithinLimit() {
+        Random random = new Random(42);
+
+        for (int iteration = 0; iteration < 200; iteration++) {
+            int maxRects = 1 + random.nextInt(8);
+            int count = 1 + random.nextInt(60);
+            int[] bounds = new int[count * 4];
+            for (int i = 0; i < count; i++) {
+                int left = random.nextInt(1000) - 100;
+                int top = random.nextInt(2000) - 100;
+                bounds[i * 4] = left;
+                bounds[i * 4 + 1] = top;
+                bounds[i * 4 + 2] = left + 1 + random.nextInt(200);
+                bounds[i * 4 + 3] = top + 1 + random.nextInt(100);
+            }
+            int[] source = bounds.clone();
+
+            SecureRectMerger merger = createMerger(maxRects);
+            int merged = merger.merge(bounds, count);
+
+            assertTrue(merged <= Math.max(maxRects, 1));
+            for (int i = 0; i < count; i++) {
+                assertCovered(bounds, merged, Arrays.copyOfRange(source, i * 4, i * 4 + 4));
+            }
+        }
+    }
+
+    private static SecureRectMerger createMerger(int maxRects) {
+        SecureRectMerger merger = new SecureRectMerger();
+        merger.configure(true, maxRects, 0);
+        return merger;
+    }
+
+    private static void assertContainsRect(int[] bounds, int count, int left, int top, int right, int bottom) {
+        for (int i = 0; i < count; i++) {
+            int offset = i * 4;
+            if (bounds[offset] == left && bounds[offset + 1] == top
+                    && bounds[offset + 2] == right && bounds[offset + 3] == bottom) {
+                return;
+            }
+        }
+        throw new AssertionError("No [" + left + ", " + top + ", " + right + ", " + bottom + "] in "
+                + Arrays.toString(Arrays.copyOf(bounds, count * 4)));
+    }
+
+    private static void assertCovered(int[] bounds, int count, int[] rect) {
+        for (int i = 0; i < count; i++) {
+            int offset = i * 4;
+            if (bounds[offset] <= rect[0] && bounds[offset + 1] <= rect[1]
+                    && bounds[offset + 2] >= rect[2] && bounds[offset + 3] >= rect[3]) {
+                return;
+            }
+        }
+        throw new AssertionError(Arrays.toString(rect) + " is not covered");
+    }
+}
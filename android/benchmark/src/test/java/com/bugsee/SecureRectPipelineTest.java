@@ -0,0 +1,100 @@
+package com.bugsee;
+
+import org.junit.Test;
+
+import java.nio.IntBuffer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class SecureRectPipelineTest {
+    @Test
+    public void passesOnlyChangedGeometryToSdk() {
+        RecordingBugseeSdk sdk = new RecordingBugseeSdk();
+        SecureRectPipeline pipeline = new SecureRectPipeline(sdk);
+
+        assertTrue(update(pipeline, 1, 10, 10, 20, 20));
+        assertEquals(1, sdk.getSecureRectsInternal().size());
+        assertFalse(update(pipeline, 1, 10, 10, 20, 20));
+        assertTrue(update(pipeline, 1, 50, 50, 20, 20));
+
+        assertEquals(2, pipeline.getUpdatesPushed());
+        assertEquals(1, pipeline.getUpdatesSuppressed());
+        assertEquals(2, sdk.getCalls("setSecureRectsInternal"));
+    }
+
+    @Test
+    public void clearsSdkRectanglesOnce() {
+        RecordingBugseeSdk sdk = new RecordingBugseeSdk();
+        SecureRectPipeline pipeline = new SecureRectPipeline(sdk);
+
+        // nothing was passed yet, hence there is nothing to clear
+        pipeline.update(null, 0);
+        assertFalse(pipeline.publish(false));
+
+        update(pipeline, 1, 10, 10, 20, 20);
+        pipeline.update(null, 0);
+        assertTrue(pipeline.isEmpty());
+        assertTrue(pipeline.publish(false));
+        assertNull(sdk.getSecureRectsInternal());
+        assertFalse(pipeline.publish(false));
+    }
+
+    @Test
+    public void pushesUpdateAfterFullScreenMask() {
+        RecordingBugseeSdk sdk = new RecordingBugseeSdk();
+        SecureRectPipeline pipeline = new SecureRectPipeline(sdk);
+
+        update(pipeline, 1, 10, 10, 20, 20);
+        pipeline.maskFullScreen();
+        assertEquals(99999, sdk.getSecureRectsInternal().get(0).right);
+
+        // same geometry, but SDK holds the full screen mask now
+        assertTrue(update(pipeline, 1, 10, 10, 20, 20));
+        assertEquals(30, sdk.getSecureRectsInternal().get(0).right);
+    }
+
+    @Test
+    public void skipsEmptyDeltaOnceMovedRectsCollapse() {
+        RecordingBugseeSdk sdk = new RecordingBugseeSdk();
+        SecureRectPipeline pipeline = new SecureRectPipeline(sdk);
+
+        update(pipeline, 1, 10, 10, 20, 20);
+        // rectangle moves, hence it covers both positions
+        assertTrue(pipeline.applyDelta(IntBuffer.wrap(new int[] { 0, 1, 50, 10, 20, 20 }), 0));
+        assertTrue(pipeline.publish(false));
+        assertEquals(10, sdk.getSecureRectsInternal().get(0).left);
+
+        // first empty delta collapses it to the current position
+        assertTrue(pipeline.applyDelta(IntBuffer.wrap(new int[] { 0 }), 0));
+        assertTrue(pipeline.publish(false));
+        assertEquals(50, sdk.getSecureRectsInternal().get(0).left);
+
+        assertFalse(pipeline.applyDelta(IntBuffer.wrap(new int[] { 0 }), 0));
+        assertEquals(3, sdk.getCalls("setSecureRectsInternal"));
+    }
+
+    @Test
+    public void dropsFullScreenMaskWithoutUpdate() {
+        RecordingBugseeSdk sdk = new RecordingBugseeSdk();
+        SecureRectPipeline pipeline = new SecureRectPipeline(sdk);
+
+        pipeline.update(IntBuffer.wrap(new int[] { 1, 10, 10, 20, 20 }), 0);
+        assertTrue(pipeline.publish(true));
+        assertEquals(2, sdk.getSecureRectsInternal().size());
+
+        assertTrue(pipeline.publish(false));
+        assertEquals(1, sdk.getSecureRectsInternal().size());
+        assertEquals(30, sdk.getSecureRectsInternal().get(0).right);
+    }
+
+    /**
+     * Passes the single rectangle in [id, x, y, width, height] layout
+     */
+    private static boolean update(SecureRectPipeline pipeline, int id, int x, int y, int width, int height) {
+        pipeline.update(IntBuffer.wrap(new int[] { id, x, y, width, height }), 0);
+        return pipeline.publish(false);
+    }
+}
@@ -0,0 +1,182 @@
+package com.bugsee;
+
+import androidx.annotation.WorkerThread;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Compresses the attachment files before they are handed over to the SDK.
+ * Compression is streamed through a fixed size buffer, so file content is
+ * never held in memory as a whole.
+ *
+ * Files which are already compressed (archives, images, video, etc.) are
+ * detected by their leading bytes and left as is, as well as the files
+ * which don't shrink.
+ */
+final class AttachmentCompressor {
+    // compression formats, values match BugseeAttachmentCompression on the Dart side
+    public static final int FORMAT_NONE = 0;
+    public static final int FORMAT_GZIP = 1;
+    public static final int FORMAT_DEFLATE = 2;
+
+    // compression doesn't pay off for tiny files due to the format overhead
+    private static final long MIN_COMPRESSIBLE_SIZE = 512;
+    private static final int BUFFER_SIZE = 16 * 1024;
+    private static final int SIGNATURE_SIZE = 12;
+    private static final String GZIP_EXTENSION = ".gz";
+    private static final String DEFLATE_EXTENSION = ".zz";
+
+    private volatile int format = FORMAT_NONE;
+    private volatile int level = Deflater.DEFAULT_COMPRESSION;
+
+    /**
+     * @param format one of the FORMAT_* constants
+     * @param level  compression level from 1 to 9, or -1 for the default one
+     */
+    public void configure(int format, int level) {
+        this.format = format;
+        this.level = (level >= Deflater.BEST_SPEED && level <= Deflater.BEST_COMPRESSION)
+                ? level : Deflater.DEFAULT_COMPRESSION;
+    }
+
+    public boolean isEnabled() {
+        return format != FORMAT_NONE;
+    }
+
+    /**
+     * @return extension which should be appended to the attachment file name
+     *         to reflect the format of the compressed file
+     */
+    public static String getExtension(File compressedFile) {
+        return compressedFile.getName().endsWith(DEFLATE_EXTENSION) ? DEFLATE_EXTENSION : GZIP_EXTENSION;
+    }
+
+    /**
+     * Compresses the file into a new one next to it. Source file is deleted
+     * once it's replaced by the compressed one.
+     *
+     * @return compressed file, or null if file was left as is
+     */
+    @WorkerThread
+    public File compress(File source) throws IOException {
+        int currentFormat = format;
+        if (currentFormat == FORMAT_NONE || source.length() < MIN_COMPRESSIBLE_SIZE
+                || isCompressed(source)) {
+            return null;
+        }
+
+        File target = new File(source.getPath()
+                + ((currentFormat == FORMAT_DEFLATE) ? DEFLATE_EXTENSION : GZIP_EXTENSION));
+        // gzip writes its own header and trailer around the raw deflate data
+        Deflater deflater = new Deflater(level, currentFormat == FORMAT_GZIP);
+        boolean succeeded = false;
+
+        try {
+            InputStream input = new FileInputStream(source);
+            try {
+                OutputStream output = createOutputStream(currentFormat, new FileOutputStream(target), deflater);
+                try {
+                    byte[] buffer = new byte[BUFFER_SIZE];
+                    int count;
+                    while ((count = input.read(buffer)) > 0) {
+                        output.write(buffer, 0, count);
+                    }
+                } finally {
+                    output.close();
+                }
+            } finally {
+                input.close();
+            }
+            succeeded = true;
+        } finally {
+            // release the native zlib memory right away instead of waiting
+            // for the finalizer
+            deflater.end();
+            if (!succeeded) {
+                target.delete();
+            }
+        }
+
+        if (target.length() >= source.length()) {
+            target.delete();
+            return null;
+        }
+
+        source.delete();
+        return target;
+    }
+
+    private static OutputStream createOutputStream(int format, OutputStream output, final Deflater deflater)
+            throws IOException {
+        if (format == FORMAT_DEFLATE) {
+            return new DeflaterOutputStream(output, deflater, BUFFER_SIZE);
+        }
+
+        // GZIPOutputStream doesn't accept the deflater, so the level is
+        // applied via the protected field instead
+        return new GZIPOutputStream(output, BUFFER_SIZE) {
+            {
+                def.end();
+                def = deflater;
+            }
+        };
+    }
+
+    /**
+     * Checks leading bytes of the file against signatures of the common
+     * compressed formats
+     */
+    private static boolean isCompressed(File file) throws IOException {
+        byte[] signature = new byte[SIGNATURE_SIZE];
+        int length = 0;
+
+        InputStream input = new FileInputStream(file);
+        try {
+            int count;
+            while (length < signature.length
+                    && (count = input.read(signature, length, signature.length - length)) > 0) {
+                length += count;
+            }
+        } finally {
+            input.close();
+        }
+
+        return startsWith(signature, length, 0, 0x1F, 0x8B)                           // gzip
+                || startsWith(signature, length, 0, 0x50, 0x4B, 0x03, 0x04)            // zip, jar, docx, apk
+                || startsWith(signature, length, 0, 0x42, 0x5A, 0x68)                  // bzip2
+                || startsWith(signature, length, 0, 0xFD, 0x37, 0x7A, 0x58, 0x5A, 0x00) // xz
+                || startsWith(signature, length, 0, 0x28, 0xB5, 0x2F, 0xFD)            // zstd
+                || startsWith(signature, length, 0, 0x37, 0x7A, 0xBC, 0xAF, 0x27, 0x1C) // 7z
+                || startsWith(signature, length, 0, 0x52, 0x61, 0x72, 0x21)            // rar
+                || startsWith(signature, length, 0, 0x89, 0x50, 0x4E, 0x47)            // png
+                || startsWith(signature, length, 0, 0xFF, 0xD8, 0xFF)                  // jpeg
+                || startsWith(signature, length, 0, 0x47, 0x49, 0x46, 0x38)            // gif
+                || (startsWith(signature, length, 0, 0x52, 0x49, 0x46, 0x46)           // webp
+                        && startsWith(signature, length, 8, 0x57, 0x45, 0x42, 0x50))
+                || startsWith(signature, length, 4, 0x66, 0x74, 0x79, 0x70)            // mp4, mov, heic
+                || startsWith(signature, length, 0, 0x1A, 0x45, 0xDF, 0xA3)            // webm, mkv
+                || startsWith(signature, length, 0, 0x4F, 0x67, 0x67, 0x53)            // ogg
+                || startsWith(signature, length, 0, 0x49, 0x44, 0x33);                 // mp3
+    }
+
+    private static boolean startsWith(byte[] data, int length, int offset, int... prefix) {
+        if (length < offset + prefix.length) {
+            return false;
+        }
+
+        for (int i = 0; i < prefix.length; i++) {
+            if ((data[offset + i] & 0xFF) != prefix[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,246 @@
+package com.bugsee;
+
+import androidx.annotation.Nullable;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Temporary files which back the report attachments, so attachment payloads
+ * are never held in memory as a whole. Files are produced either by copying
+ * the file specified by the Flutter side, or by writing the chunks it
+ * streams. Every file is capped by the maximum attachment size, and data
+ * beyond the cap is discarded.
+ *
+ * Files are handed over to the SDK, which reads them asynchronously, hence
+ * they are not deleted right away, but once they become stale.
+ *
+ * Streams are begun on behalf of the report waiting for its attachments.
+ * Once the report is completed (or its deadline passes), streams which were
+ * not finished by then are discarded, so late producers can't leak them.
+ */
+final class AttachmentStore {
+    private static final String DIRECTORY_NAME = "bugsee_attachments";
+    private static final long STALE_FILE_AGE_MS = 24 * 60 * 60 * 1000L;
+
+    public static final long DEFAULT_MAX_ATTACHMENT_SIZE = 10 * 1024 * 1024;
+    public static final long DEFAULT_MAX_TOTAL_SIZE = 50 * 1024 * 1024;
+
+    private static final class Stream {
+        final File file;
+        final FileChannel channel;
+        long written = 0;
+
+        Stream(File file, FileChannel channel) {
+            this.file = file;
+            this.channel = channel;
+        }
+    }
+
+    private final AtomicInteger nextStreamId = new AtomicInteger(1);
+    private final ConcurrentHashMap<Integer, Stream> streams = new ConcurrentHashMap<>();
+    private final AtomicInteger nextReportId = new AtomicInteger(1);
+    // ids of the streams begun for the reports which are not completed yet
+    private final ConcurrentHashMap<Integer, Set<Integer>> reportStreams = new ConcurrentHashMap<>();
+    @Nullable
+    private volatile File directory;
+    private volatile long maxAttachmentSize = DEFAULT_MAX_ATTACHMENT_SIZE;
+    private volatile long maxTotalSize = DEFAULT_MAX_TOTAL_SIZE;
+
+    public void setCacheDirectory(@Nullable File cacheDirectory) {
+        directory = (cacheDirectory != null) ? new File(cacheDirectory, DIRECTORY_NAME) : null;
+    }
+
+    public boolean isAvailable() {
+        return directory != null;
+    }
+
+    public void configure(long maxAttachmentSize, long maxTotalSize) {
+        this.maxAttachmentSize = maxAttachmentSize;
+        this.maxTotalSize = maxTotalSize;
+    }
+
+    /**
+     * Maximum size of all the attachments of a single report
+     */
+    public long getMaxTotalSize() {
+        return maxTotalSize;
+    }
+
+    /**
+     * Registers the report which streams can be begun for
+     */
+    public int beginReport() {
+        int reportId = nextReportId.getAndIncrement();
+        reportStreams.put(reportId, Collections.newSetFromMap(new ConcurrentHashMap<Integer, Boolean>()));
+        return reportId;
+    }
+
+    /**
+     * Discards all the streams of the report which were not finished yet
+     * and refuses to begin new ones for it
+     */
+    public void discardReport(int reportId) {
+        Set<Integer> streamIds = reportStreams.remove(reportId);
+        if (streamIds != null) {
+            for (Integer streamId : streamIds) {
+                discardStream(streamId);
+            }
+        }
+    }
+
+    /**
+     * @throws IOException if file can't be created or report is already
+     *                     completed
+     */
+    public int beginStream(int reportId) throws IOException {
+        Set<Integer> streamIds = reportStreams.get(reportId);
+        if (streamIds == null) {
+            throw new IOException("Report is already completed");
+        }
+
+        File file = createFile();
+        Stream stream = new Stream(file, new FileOutputStream(file).getChannel());
+        int streamId = nextStreamId.getAndIncrement();
+        streams.put(streamId, stream);
+        streamIds.add(streamId);
+
+        if (reportStreams.get(reportId) != streamIds) {
+            // report was discarded meanwhile, and might not see this stream
+            discardStream(streamId);
+            throw new IOException("Report is already completed");
+        }
+
+        return streamId;
+    }
+
+    /**
+     * Appends the chunk to the stream. Streams are written by a single
+     * producer, so there is no synchronization per stream.
+     *
+     * @return false if stream is unknown or reached the size cap, hence
+     *         there is no sense to send more data
+     */
+    public boolean appendToStream(int streamId, byte[] chunk) throws IOException {
+        Stream stream = streams.get(streamId);
+        if (stream == null) {
+            return false;
+        }
+
+        long remaining = maxAttachmentSize - stream.written;
+        int length = (int) Math.min(chunk.length, Math.max(remaining, 0));
+        ByteBuffer buffer = ByteBuffer.wrap(chunk, 0, length);
+        while (buffer.hasRemaining()) {
+            stream.channel.write(buffer);
+        }
+        stream.written += length;
+
+        return stream.written < maxAttachmentSize;
+    }
+
+    /**
+     * Closes the stream and returns the file it was written to
+     */
+    @Nullable
+    public File finishStream(int streamId) throws IOException {
+        Stream stream = streams.remove(streamId);
+        if (stream == null) {
+            return null;
+        }
+
+        stream.channel.close();
+        return stream.file;
+    }
+
+    public void discardStream(int streamId) {
+        Stream stream = streams.remove(streamId);
+        if (stream != null) {
+            try {
+                stream.channel.close();
+            } catch (IOException e) {
+                // file is deleted anyway
+            }
+            stream.file.delete();
+        }
+    }
+
+    /**
+     * Copies the file into the store. Copying is done by the channels, so
+     * the data doesn't pass through the Java heap.
+     */
+    public File copyFile(String path) throws IOException {
+        FileChannel source = new FileInputStream(path).getChannel();
+        try {
+            File file = createFile();
+            FileChannel target = new FileOutputStream(file).getChannel();
+            try {
+                long size = Math.min(source.size(), maxAttachmentSize);
+                long position = 0;
+                while (position < size) {
+                    long transferred = source.transferTo(position, size - position, target);
+                    if (transferred <= 0) {
+                        break;
+                    }
+                    position += transferred;
+                }
+            } finally {
+                target.close();
+            }
+            return file;
+        } finally {
+            source.close();
+        }
+    }
+
+    public File writeBytes(byte[] data) throws IOException {
+        File file = createFile();
+        FileChannel target = new FileOutputStream(file).getChannel();
+
+        try {
+            ByteBuffer buffer = ByteBuffer.wrap(data, 0, (int) Math.min(data.length, maxAttachmentSize));
+            while (buffer.hasRemaining()) {
+                target.write(buffer);
+            }
+        } finally {
+            target.close();
+        }
+
+        return file;
+    }
+
+    public void deleteStaleFiles() {
+        File storeDirectory = directory;
+        File[] files = (storeDirectory != null) ? storeDirectory.listFiles() : null;
+        if (files == null) {
+            return;
+        }
+
+        long threshold = System.currentTimeMillis() - STALE_FILE_AGE_MS;
+        for (File file : files) {
+            if (file.lastModified() < threshold) {
+                file.delete();
+            }
+        }
+    }
+
+    private File createFile() throws IOException {
+        File storeDirectory = directory;
+        if (storeDirectory == null) {
+            throw new IOException("Attachments directory is not available");
+        }
+
+        if (!storeDirectory.isDirectory() && !storeDirectory.mkdirs()) {
+            throw new IOException("Failed to create attachments directory");
+        }
+
+        return File.createTempFile("attachment", ".bin", storeDirectory);
+    }
+}
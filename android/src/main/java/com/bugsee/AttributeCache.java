@@ -0,0 +1,192 @@
+package com.bugsee;
+
+import androidx.annotation.Nullable;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Write-behind cache of the custom attributes. Writes are collected for a
+ * short period and applied to the SDK in one go, so rapid writes to the same
+ * key result in a single SDK call with the last value. Values written through
+ * the cache are served from memory.
+ *
+ * Cache is disabled by default, in which case all calls go directly to the
+ * SDK. Methods can be called from any thread.
+ */
+final class AttributeCache {
+    // marks the attribute which was cleared, as null is a valid value
+    private static final Object CLEARED = new Object();
+
+    private final BugseeSdk sdk;
+    private final Object lock = new Object();
+    // serializes the SDK calls made by flushes and the direct writes, so
+    // the batches collected one after another are applied in the same
+    // order, and nothing is overwritten by the older pending value
+    private final Object flushLock = new Object();
+    // values written through the cache, including the ones not applied yet
+    private final HashMap<String, Object> values = new HashMap<>();
+    // writes which are not applied to the SDK yet, in their original order
+    private LinkedHashMap<String, Object> pending = new LinkedHashMap<>();
+    @Nullable
+    private ScheduledExecutorService executor;
+    private long writeDelayMs = 0;
+    private boolean flushScheduled = false;
+
+    private final Runnable flushRunnable = new Runnable() {
+        @Override
+        public void run() {
+            flush();
+        }
+    };
+
+    AttributeCache(BugseeSdk sdk) {
+        this.sdk = sdk;
+    }
+
+    /**
+     * @param writeDelayMs period during which writes are collected, zero or
+     *                     negative value disables the cache
+     */
+    public void configure(long writeDelayMs) {
+        ScheduledExecutorService previousExecutor = null;
+
+        // direct writes made once the cache is disabled wait for the final
+        // flush, otherwise it could overwrite them with older values
+        synchronized (flushLock) {
+            synchronized (lock) {
+                this.writeDelayMs = writeDelayMs;
+                if (writeDelayMs > 0 && executor == null) {
+                    executor = Executors.newSingleThreadScheduledExecutor();
+                } else if (writeDelayMs <= 0 && executor != null) {
+                    previousExecutor = executor;
+                    executor = null;
+                }
+            }
+
+            if (previousExecutor != null) {
+                // apply whatever was collected so far and stop serving values
+                // from memory, as SDK becomes the only source of truth again
+                flush();
+                synchronized (lock) {
+                    values.clear();
+                }
+            }
+        }
+
+        if (previousExecutor != null) {
+            previousExecutor.shutdown();
+        }
+    }
+
+    /**
+     * Applies the collected writes and stops the worker thread. Cache is
+     * disabled afterwards until it's configured again.
+     */
+    public void shutdown() {
+        configure(0);
+    }
+
+    /**
+     * Applies the collected writes and forgets the values served from
+     * memory, e.g. when the SDK is stopped or relaunched and may reset its
+     * attributes. Writes which are still pending are kept.
+     */
+    public void invalidate() {
+        synchronized (flushLock) {
+            flush();
+            synchronized (lock) {
+                values.clear();
+                values.putAll(pending);
+            }
+        }
+    }
+
+    public void set(String key, @Nullable Object value) {
+        if (!enqueue(key, value)) {
+            synchronized (flushLock) {
+                sdk.setAttribute(key, value);
+            }
+        }
+    }
+
+    public void clear(String key) {
+        if (!enqueue(key, CLEARED)) {
+            synchronized (flushLock) {
+                sdk.clearAttribute(key);
+            }
+        }
+    }
+
+    public void clearAll() {
+        synchronized (flushLock) {
+            synchronized (lock) {
+                values.clear();
+                pending.clear();
+            }
+            sdk.clearAllAttributes();
+        }
+    }
+
+    @Nullable
+    public Object get(String key) {
+        synchronized (lock) {
+            if (values.containsKey(key)) {
+                Object value = values.get(key);
+                return (value != CLEARED) ? value : null;
+            }
+        }
+
+        return sdk.getAttribute(key);
+    }
+
+    /**
+     * Applies the collected writes to the SDK. Must be called before
+     * anything which captures the attributes, e.g. report creation.
+     */
+    public void flush() {
+        synchronized (flushLock) {
+            LinkedHashMap<String, Object> writes;
+            synchronized (lock) {
+                flushScheduled = false;
+                if (pending.isEmpty()) {
+                    return;
+                }
+                writes = pending;
+                pending = new LinkedHashMap<>();
+            }
+
+            for (Map.Entry<String, Object> entry : writes.entrySet()) {
+                if (entry.getValue() == CLEARED) {
+                    sdk.clearAttribute(entry.getKey());
+                } else {
+                    sdk.setAttribute(entry.getKey(), entry.getValue());
+                }
+            }
+        }
+    }
+
+    /**
+     * @return false if cache is disabled, so the write must be applied
+     *         directly
+     */
+    private boolean enqueue(String key, Object value) {
+        synchronized (lock) {
+            if (executor == null) {
+                return false;
+            }
+
+            values.put(key, value);
+            pending.put(key, value);
+            if (!flushScheduled) {
+                flushScheduled = true;
+                executor.schedule(flushRunnable, writeDelayMs, TimeUnit.MILLISECONDS);
+            }
+            return true;
+        }
+    }
+}
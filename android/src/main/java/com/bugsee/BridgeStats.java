@@ -0,0 +1,211 @@
+package com.bugsee;
+
+import androidx.annotation.Nullable;
+
+import java.nio.ByteBuffer;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lock-free counters describing the cost of the Flutter <-> native bridge.
+ * For every method (in each direction) we count calls, approximate payload
+ * size and build the latency histogram with power-of-two buckets, where
+ * bucket N holds calls which took less than 2^N microseconds.
+ *
+ * Binary payloads and scalars are sized exactly on every call. Walking the
+ * structured payloads (lists, maps, strings) costs O(payload), so they are
+ * only sized on every {@link #SAMPLE_INTERVAL}-th call of the method and
+ * the result is extrapolated to the calls in between.
+ *
+ * Counters can be updated from any thread. Snapshot is not atomic as a
+ * whole, which is fine for the diagnostics purposes.
+ */
+final class BridgeStats {
+    public static final int DIRECTION_INCOMING = 0;
+    public static final int DIRECTION_OUTGOING = 1;
+
+    private static final int HISTOGRAM_BUCKETS = 32;
+    private static final int SAMPLE_INTERVAL = 16;
+
+    private static final class MethodStats {
+        final AtomicLong calls = new AtomicLong();
+        final AtomicLong totalNanos = new AtomicLong();
+        final AtomicLong maxNanos = new AtomicLong();
+        final AtomicLong payloadBytes = new AtomicLong();
+        final AtomicLongArray histogram = new AtomicLongArray(HISTOGRAM_BUCKETS);
+    }
+
+    private final ConcurrentHashMap<String, MethodStats> incomingMethods = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, MethodStats> outgoingMethods = new ConcurrentHashMap<>();
+
+    /**
+     * Records the call with already known payload size
+     */
+    public void record(int direction, String method, long startNanos, long payloadBytes) {
+        long elapsedNanos = System.nanoTime() - startNanos;
+        MethodStats stats = getMethodStats(direction, method);
+
+        stats.calls.incrementAndGet();
+        stats.payloadBytes.addAndGet(payloadBytes);
+        recordLatency(stats, elapsedNanos);
+    }
+
+    /**
+     * Records the call with the payload which is sized here, structured
+     * payloads are sized only on the sampled calls
+     */
+    public void record(int direction, String method, long startNanos, @Nullable Object arguments,
+            @Nullable Object result) {
+        long elapsedNanos = System.nanoTime() - startNanos;
+        MethodStats stats = getMethodStats(direction, method);
+
+        boolean sampled = (stats.calls.incrementAndGet() % SAMPLE_INTERVAL) == 1;
+        stats.payloadBytes.addAndGet(sizeOf(arguments, sampled) + sizeOf(result, sampled));
+        recordLatency(stats, elapsedNanos);
+    }
+
+    /**
+     * Creates snapshot of all the counters in the form which can be passed
+     * through the standard method codec
+     */
+    public HashMap<String, Object> snapshot() {
+        HashMap<String, Object> result = new HashMap<>();
+        result.put("incoming", snapshot(incomingMethods));
+        result.put("outgoing", snapshot(outgoingMethods));
+        return result;
+    }
+
+    /**
+     * Estimation of the encoded size of the value passed through the
+     * standard message codec. Only lengths are used, so nothing is copied,
+     * but the whole value graph is walked, so the cost is O(payload).
+     */
+    public static long estimateSize(@Nullable Object value) {
+        long size = binarySize(value);
+        if (size >= 0) {
+            return size;
+        } else if (value instanceof String) {
+            return utf8Length((String) value);
+        } else if (value instanceof List) {
+            size = 0;
+            for (Object item : (List<?>) value) {
+                size += estimateSize(item);
+            }
+            return size;
+        } else if (value instanceof Map) {
+            size = 0;
+            for (Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+                size += estimateSize(entry.getKey()) + estimateSize(entry.getValue());
+            }
+            return size;
+        }
+
+        return 0;
+    }
+
+    private static long sizeOf(@Nullable Object value, boolean sampled) {
+        long size = binarySize(value);
+        if (size >= 0) {
+            return size;
+        }
+
+        return sampled ? estimateSize(value) * SAMPLE_INTERVAL : 0;
+    }
+
+    /**
+     * Size of the values which can be measured in O(1), or -1 for the
+     * structured ones
+     */
+    private static long binarySize(@Nullable Object value) {
+        if (value == null || value instanceof Boolean) {
+            return 1;
+        } else if (value instanceof Number) {
+            return 8;
+        } else if (value instanceof byte[]) {
+            return ((byte[]) value).length;
+        } else if (value instanceof ByteBuffer) {
+            return ((ByteBuffer) value).remaining();
+        } else if (value instanceof int[]) {
+            return ((int[]) value).length * 4L;
+        } else if (value instanceof long[]) {
+            return ((long[]) value).length * 8L;
+        } else if (value instanceof double[]) {
+            return ((double[]) value).length * 8L;
+        }
+
+        return -1;
+    }
+
+    private static long utf8Length(String value) {
+        long length = 0;
+        for (int i = 0, count = value.length(); i < count; i++) {
+            char c = value.charAt(i);
+            if (c < 0x80) {
+                length += 1;
+            } else if (c < 0x800) {
+                length += 2;
+            } else if (Character.isSurrogate(c)) {
+                // each half of the surrogate pair takes half of its 4 bytes
+                length += 2;
+            } else {
+                length += 3;
+            }
+        }
+        return length;
+    }
+
+    private MethodStats getMethodStats(int direction, String method) {
+        ConcurrentHashMap<String, MethodStats> directionMethods =
+                (direction == DIRECTION_INCOMING) ? incomingMethods : outgoingMethods;
+        MethodStats stats = directionMethods.get(method);
+        if (stats == null) {
+            MethodStats newStats = new MethodStats();
+            stats = directionMethods.putIfAbsent(method, newStats);
+            if (stats == null) {
+                stats = newStats;
+            }
+        }
+        return stats;
+    }
+
+    private static void recordLatency(MethodStats stats, long elapsedNanos) {
+        stats.totalNanos.addAndGet(elapsedNanos);
+        stats.histogram.incrementAndGet(bucketOf(elapsedNanos / 1000));
+
+        long max = stats.maxNanos.get();
+        while (elapsedNanos > max && !stats.maxNanos.compareAndSet(max, elapsedNanos)) {
+            max = stats.maxNanos.get();
+        }
+    }
+
+    private static int bucketOf(long micros) {
+        int bucket = 64 - Long.numberOfLeadingZeros(micros);
+        return Math.min(bucket, HISTOGRAM_BUCKETS - 1);
+    }
+
+    private static HashMap<String, Object> snapshot(ConcurrentHashMap<String, MethodStats> directionMethods) {
+        HashMap<String, Object> result = new HashMap<>();
+
+        for (Map.Entry<String, MethodStats> entry : directionMethods.entrySet()) {
+            MethodStats stats = entry.getValue();
+            long[] histogram = new long[HISTOGRAM_BUCKETS];
+            for (int i = 0; i < HISTOGRAM_BUCKETS; i++) {
+                histogram[i] = stats.histogram.get(i);
+            }
+
+            HashMap<String, Object> values = new HashMap<>();
+            values.put("calls", stats.calls.get());
+            values.put("totalMicros", stats.totalNanos.get() / 1000);
+            values.put("maxMicros", stats.maxNanos.get() / 1000);
+            values.put("payloadBytes", stats.payloadBytes.get());
+            values.put("histogram", histogram);
+            result.put(entry.getKey(), values);
+        }
+
+        return result;
+    }
+}
@@ -2,47 +2,61 @@ package com.bugsee;
 
 import android.app.Activity;
 import android.app.Application;
+import android.content.ComponentCallbacks;
 import android.content.Context;
 import android.content.res.Configuration;
 import android.graphics.Color;
 import android.graphics.Rect;
-import android.hardware.SensorManager;
-import android.os.Process;
+import android.hardware.display.DisplayManager;
+import android.os.Build;
 import android.os.Handler;
 import android.os.Looper;
-import android.view.OrientationEventListener;
+import android.os.Process;
+import android.view.Choreographer;
+import android.view.Display;
 import android.view.Surface;
 import android.view.WindowManager;
 
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
+import androidx.annotation.RequiresApi;
 import androidx.annotation.UiThread;
+import androidx.annotation.VisibleForTesting;
+import androidx.annotation.WorkerThread;
 
+import java.io.File;
+import java.io.IOException;
+import java.lang.Math;
 import java.lang.ref.WeakReference;
 import java.lang.reflect.Field;
-import java.lang.reflect.Method;
-import java.lang.Math;
-import java.util.Arrays;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
-import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
-import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.Semaphore;
 
 import io.flutter.embedding.engine.plugins.FlutterPlugin;
 import io.flutter.embedding.engine.plugins.activity.ActivityAware;
 import io.flutter.embedding.engine.plugins.activity.ActivityPluginBinding;
+import io.flutter.plugin.common.BasicMessageChannel;
+import io.flutter.plugin.common.BinaryCodec;
+import io.flutter.plugin.common.BinaryMessenger;
 import io.flutter.plugin.common.MethodChannel;
 import io.flutter.plugin.common.MethodChannel.MethodCallHandler;
 import io.flutter.plugin.common.MethodChannel.Result;
 import io.flutter.plugin.common.MethodCall;
 import io.flutter.plugin.common.PluginRegistry.Registrar;
+import io.flutter.plugin.common.StandardMethodCodec;
 
 import com.bugsee.library.Bugsee;
-import com.bugsee.library.BugseeInternalAdapter;
 import com.bugsee.library.attachment.CustomAttachment;
 import com.bugsee.library.attachment.Report;
 import com.bugsee.library.attachment.ReportAttachmentsProvider;
@@ -50,17 +64,9 @@ import com.bugsee.library.data.AdditionalDataCaptureCallback;
 import com.bugsee.library.data.IssueSeverity;
 import com.bugsee.library.data.AdditionalDataCapture;
 import com.bugsee.library.events.BugseeLogLevel;
-import com.bugsee.library.exchange.ExchangeNetworkEvent;
 import com.bugsee.library.feedback.OnNewFeedbackListener;
 import com.bugsee.library.lifecycle.LifecycleEventListener;
 import com.bugsee.library.lifecycle.LifecycleEventTypes;
-import com.bugsee.library.logs.BugseeLog;
-import com.bugsee.library.logs.LogFilter;
-import com.bugsee.library.logs.LogListener;
-import com.bugsee.library.network.NetworkEventFilter;
-import com.bugsee.library.network.NetworkEventListener;
-import com.bugsee.library.network.data.BugseeNetworkEvent;
-import com.bugsee.library.network.data.NetworkEventType;
 
 /**
  * BugseePlugin
@@ -68,22 +74,98 @@ import com.bugsee.library.network.data.NetworkEventType;
 public class BugseePlugin implements FlutterPlugin, MethodCallHandler, ActivityAware {
     private static final String TAG = "BugseeFlutterBridge";
     private static final String CHANNEL_NAME = "bugsee";
-
-    private final HashMap<String, Method> methods = new HashMap<>();
+    private static final String SECURE_RECTS_CHANNEL_NAME = "bugsee/secure_rects";
+    private static final String TELEMETRY_CHANNEL_NAME = "bugsee/telemetry";
+    private static final int SECURE_RECTS_SNAPSHOT = 0;
+    private static final int SECURE_RECTS_DELTA = 1;
+    private static final int SECURE_RECTS_RESYNC_REPLY = 1;
+    // how long the whole screen stays masked after the device is rotated
+    private static final long FULL_SCREEN_MASK_DURATION_MS = 1500;
+    private static final int TELEMETRY_EVENT = 0;
+    private static final int TELEMETRY_TRACE = 1;
+
+    // bits of the active Dart callbacks mask
+    private static final int CALLBACK_NETWORK_EVENT = SdkFilterHooks.CALLBACK_NETWORK_EVENT;
+    private static final int CALLBACK_LOG_EVENT = SdkFilterHooks.CALLBACK_LOG_EVENT;
+    private static final int CALLBACK_ATTACHMENTS = 1 << 2;
+    private static final int CALLBACK_NEW_FEEDBACK = 1 << 3;
+    private static final int CALLBACK_LIFECYCLE_EVENT = 1 << 4;
+
+    private final BugseeSdk mSdk;
+    private final BridgeStats mBridgeStats = new BridgeStats();
 
     @Nullable
     private MethodChannel channel;
+    @Nullable
+    private BasicMessageChannel<ByteBuffer> secureRectsChannel;
+    @Nullable
+    private MethodChannel telemetryChannel;
     private WeakReference<Activity> activityRef = null;
     private WeakReference<Context> contextRef = null;
     private OrientationTracker orientationTracker = null;
     private HashMap<String, Object> lastLaunchOptions;
-    private final HashSet<String> activeCallbacks = new HashSet<>();
-    private final HashMap<Integer, Rect[]> mInternalRectsMap = new HashMap<>();
+    // mask is written on the UI thread only and read from the SDK threads,
+    // hence publishing the whole value through volatile is enough
+    private volatile int mActiveCallbacks = 0;
+    private final CallbackWindow mAttachmentsWindow = new CallbackWindow(4, 30000,
+            CallbackWindow.POLICY_DROP);
+    private final AttachmentStore mAttachmentStore = new AttachmentStore();
+    private final AttachmentCompressor mAttachmentCompressor = new AttachmentCompressor();
+    private final NetworkBodyDecoder mNetworkBodyDecoder = new NetworkBodyDecoder();
+    private final AttributeCache mAttributeCache;
+    // appearance fields resolved per class, main channel (UI thread) only
+    private final HashMap<Class<?>, HashMap<String, Field>> mAppearanceFields = new HashMap<>();
+    // work which must stay off the UI thread, e.g. attachments resolution,
+    // as it involves file I/O, and launch preparation
+    // shut down on detach and re-created on the next attach, UI thread only
+    private ExecutorService mBackgroundExecutor = Executors.newSingleThreadExecutor();
+    private final UiDispatchQueue mUiDispatchQueue = new UiDispatchQueue();
+    private final SdkFilterHooks mFilterHooks;
+    private final SecureRectPipeline mSecureRects;
+    private boolean mSecureRectsSynced = false;
+    private int mSecureRectsSequence = 0;
+    private final NetworkEventRegistrar mNetworkEvents;
     private long lastOrientationChangeTimeStamp = 0;
+    private final Runnable mSecureRectsRepublish = new Runnable() {
+        @Override
+        public void run() {
+            publishSecureRects();
+        }
+    };
+    @Nullable
+    private volatile HashMap<String, Object> mLastLaunchTimings;
+    // launch hooks are installed lazily, UI thread only
+    private boolean mLaunchHooksInstalled = false;
 
     public BugseePlugin() {
-        // TODO: should we do this on launch instead?
-        createHandlersAndCallbacks();
+        this(new DefaultBugseeSdk());
+    }
+
+    /**
+     * @param sdk receives all the calls plugin makes to the underlying SDK,
+     *            which allows to run the plugin against a stand-in one
+     */
+    @VisibleForTesting
+    BugseePlugin(BugseeSdk sdk) {
+        mSdk = sdk;
+        mAttributeCache = new AttributeCache(sdk);
+        mSecureRects = new SecureRectPipeline(sdk);
+        mNetworkEvents = new NetworkEventRegistrar(sdk, mNetworkBodyDecoder);
+        mFilterHooks = new SdkFilterHooks(sdk, mUiDispatchQueue, new SdkFilterHooks.Host() {
+            @Override
+            public boolean isCallbackActive(int callbackBit) {
+                return BugseePlugin.this.isCallbackActive(callbackBit);
+            }
+
+            @Override
+            public boolean invokeCallback(String method, Object arguments, Result callback) {
+                if (channel == null) {
+                    return false;
+                }
+                invokeChannelMethod(method, arguments, callback);
+                return true;
+            }
+        });
     }
 
     // ----------------------------------------------------------------------------------
@@ -101,30 +183,49 @@ public class BugseePlugin implements FlutterPlugin, MethodCallHandler, ActivityA
         }
     }
 
-    private static class ThreadUtils {
-        private static Handler mainLooperHandler;
-
-        private static void ensureHandlerCreated() {
-            if (mainLooperHandler == null) {
-                mainLooperHandler = new Handler(Looper.getMainLooper());
-            }
+    /**
+     * Wraps the result of the outgoing method call to record its round-trip
+     * time and payload size in the bridge stats
+     */
+    private static class MeasuredResult implements Result {
+        private final BridgeStats stats;
+        private final String method;
+        private final long startTime;
+        @Nullable
+        private final Object arguments;
+        @Nullable
+        private final Result result;
+
+        MeasuredResult(BridgeStats stats, String method, @Nullable Object arguments, @Nullable Result result) {
+            this.stats = stats;
+            this.method = method;
+            this.startTime = System.nanoTime();
+            this.arguments = arguments;
+            this.result = result;
         }
 
-        public static void runOnUiThread(Runnable runnable) {
-            if (isUiThread()) {
-                runnable.run();
-            } else {
-                postToUiThread(runnable);
+        @Override
+        public void success(@Nullable Object value) {
+            stats.record(BridgeStats.DIRECTION_OUTGOING, method, startTime, arguments, value);
+            if (result != null) {
+                result.success(value);
             }
         }
 
-        public static synchronized void postToUiThread(Runnable runnable) {
-            ensureHandlerCreated();
-            mainLooperHandler.post(runnable);
+        @Override
+        public void error(String errorCode, @Nullable String errorMessage, @Nullable Object errorDetails) {
+            stats.record(BridgeStats.DIRECTION_OUTGOING, method, startTime, arguments, null);
+            if (result != null) {
+                result.error(errorCode, errorMessage, errorDetails);
+            }
         }
 
-        public static boolean isUiThread() {
-            return Looper.getMainLooper().getThread() == Thread.currentThread();
+        @Override
+        public void notImplemented() {
+            stats.record(BridgeStats.DIRECTION_OUTGOING, method, startTime, arguments, null);
+            if (result != null) {
+                result.notImplemented();
+            }
         }
     }
 
@@ -140,6 +241,9 @@ public class BugseePlugin implements FlutterPlugin, MethodCallHandler, ActivityA
         BugseePlugin plugin = new BugseePlugin();
         plugin.activityRef = new WeakReference<>(currentActivity);
         plugin.channel = channel;
+        plugin.secureRectsChannel = plugin.createSecureRectsChannel(registrar.messenger());
+        plugin.telemetryChannel = plugin.createTelemetryChannel(registrar.messenger());
+        plugin.mAttachmentStore.setCacheDirectory(registrar.context().getCacheDir());
 //        plugin.orientationTracker = new OrientationTracker(registrar.context(), new OrientationTrackerCallback() {
 //            @Override
 //            public void onOrientationChanged(Orientation newOrientation) {
@@ -160,13 +264,20 @@ public class BugseePlugin implements FlutterPlugin, MethodCallHandler, ActivityA
         contextRef = new WeakReference<>(binding.getApplicationContext());
         channel = new MethodChannel(binding.getBinaryMessenger(), CHANNEL_NAME);
         channel.setMethodCallHandler(this);
+        secureRectsChannel = createSecureRectsChannel(binding.getBinaryMessenger());
+        telemetryChannel = createTelemetryChannel(binding.getBinaryMessenger());
+        mAttachmentStore.setCacheDirectory(binding.getApplicationContext().getCacheDir());
+        if (mBackgroundExecutor.isShutdown()) {
+            // plugin instance is re-attached to the new engine
+            mBackgroundExecutor = Executors.newSingleThreadExecutor();
+        }
+        // tracker is started once there are secure rectangles to protect
         orientationTracker = new OrientationTracker(contextRef, new OrientationTrackerCallback() {
             @Override
             public void onOrientationChanged(Orientation newOrientation) {
                 setNewOrientation(newOrientation);
             }
         });
-        orientationTracker.start();
     }
 
     @Override
@@ -180,6 +291,16 @@ public class BugseePlugin implements FlutterPlugin, MethodCallHandler, ActivityA
             channel = null;
         }
 
+        if (secureRectsChannel != null) {
+            secureRectsChannel.setMessageHandler(null);
+            secureRectsChannel = null;
+        }
+
+        if (telemetryChannel != null) {
+            telemetryChannel.setMethodCallHandler(null);
+            telemetryChannel = null;
+        }
+
         if (orientationTracker != null) {
             orientationTracker.stop();
             orientationTracker = null;
@@ -187,7 +308,11 @@ public class BugseePlugin implements FlutterPlugin, MethodCallHandler, ActivityA
 
         // plugin is completely detached from FlutterEngine. Stop our all
         // our internal mechanics and release resources
-        BugseeInternalAdapter.stop(true);
+        mAttributeCache.shutdown();
+        mSdk.stopInternal(true);
+        // already queued work (e.g. attachments of the pending report) is
+        // still completed, while the worker thread exits afterwards
+        mBackgroundExecutor.shutdown();
     }
 
     // endregion
@@ -225,6 +350,16 @@ public class BugseePlugin implements FlutterPlugin, MethodCallHandler, ActivityA
     @Override
     @UiThread
     public void onMethodCall(MethodCall call, @NonNull Result result) {
+        long startTime = System.nanoTime();
+        try {
+            handleMethodCall(call, result);
+        } finally {
+            mBridgeStats.record(BridgeStats.DIRECTION_INCOMING, call.method, startTime, call.arguments, null);
+        }
+    }
+
+    @UiThread
+    private void handleMethodCall(MethodCall call, @NonNull Result result) {
         // we use switch here instead of reflection due to performance
         // of the latter. The downside of it, however, is much more
         // verbose and bloated code
@@ -250,9 +385,15 @@ public class BugseePlugin implements FlutterPlugin, MethodCallHandler, ActivityA
             case "trace":
                 trace(call, result);
                 break;
+            case "telemetryBatch":
+                telemetryBatch(call, result);
+                break;
             case "log":
                 log(call, result);
                 break;
+            case "logBatch":
+                logBatch(call, result);
+                break;
             case "setAttribute":
                 setAttribute(call, result);
                 break;
@@ -265,6 +406,12 @@ public class BugseePlugin implements FlutterPlugin, MethodCallHandler, ActivityA
             case "clearAllAttributes":
                 clearAllAttributes(call, result);
                 break;
+            case "setAttributes":
+                setAttributes(call, result);
+                break;
+            case "getAttributes":
+                getAttributes(call, result);
+                break;
             case "setEmail":
                 setEmail(call, result);
                 break;
@@ -304,6 +451,15 @@ public class BugseePlugin implements FlutterPlugin, MethodCallHandler, ActivityA
             case "setSecureRectsInternal":
                 setSecureRectsInternal(call, result);
                 break;
+            case "setSecureRectsMergeOptions":
+                setSecureRectsMergeOptions(call, result);
+                break;
+            case "getSecureRectsStats":
+                getSecureRectsStats(call, result);
+                break;
+            case "getBridgeStats":
+                getBridgeStats(call, result);
+                break;
             case "setViewHidden":
                 setViewHidden(call, result);
                 break;
@@ -316,12 +472,45 @@ public class BugseePlugin implements FlutterPlugin, MethodCallHandler, ActivityA
             case "getAppearanceProperty":
                 getAppearanceProperty(call, result);
                 break;
+            case "setAppearance":
+                setAppearance(call, result);
+                break;
+            case "getAppearance":
+                getAppearance(call, result);
+                break;
             case "setCallbackState":
                 setCallbackState(call, result);
                 break;
+            case "setLogFilterRules":
+                setLogFilterRules(call, result);
+                break;
+            case "setNetworkRedactionRules":
+                setNetworkRedactionRules(call, result);
+                break;
+            case "setFilterLimits":
+                setFilterLimits(call, result);
+                break;
+            case "setAttachmentOptions":
+                setAttachmentOptions(call, result);
+                break;
+            case "setAttributesWriteDelay":
+                setAttributesWriteDelay(call, result);
+                break;
             case "registerNetworkEvent":
                 registerNetworkEvent(call, result);
                 break;
+            case "registerNetworkEvents":
+                registerNetworkEvents(call, result);
+                break;
+            case "beginAttachmentStream":
+                beginAttachmentStream(call, result);
+                break;
+            case "appendAttachmentStream":
+                appendAttachmentStream(call, result);
+                break;
+            case "discardAttachmentStream":
+                discardAttachmentStream(call, result);
+                break;
             case "testExceptionCrash":
                 testExceptionCrash(call, result);
                 break;
@@ -334,6 +523,93 @@ public class BugseePlugin implements FlutterPlugin, MethodCallHandler, ActivityA
         }
     }
 
+    private MethodChannel createTelemetryChannel(BinaryMessenger messenger) {
+        // telemetry doesn't touch the UI, hence it's handled on a background
+        // task queue and doesn't compete with layout and input on the main
+        // looper. Messengers which don't support task queues (e.g. embedding
+        // V1) fall back to the main thread
+        MethodChannel methodChannel;
+        try {
+            BinaryMessenger.TaskQueue taskQueue = messenger.makeBackgroundTaskQueue();
+            methodChannel = new MethodChannel(messenger, TELEMETRY_CHANNEL_NAME, StandardMethodCodec.INSTANCE,
+                    taskQueue);
+        } catch (Throwable t) {
+            methodChannel = new MethodChannel(messenger, TELEMETRY_CHANNEL_NAME);
+        }
+
+        methodChannel.setMethodCallHandler(new MethodCallHandler() {
+            @Override
+            @WorkerThread
+            public void onMethodCall(@NonNull MethodCall call, @NonNull Result result) {
+                long startTime = System.nanoTime();
+                try {
+                    onTelemetryMethodCall(call, result);
+                } finally {
+                    mBridgeStats.record(BridgeStats.DIRECTION_INCOMING, call.method, startTime, call.arguments,
+                            null);
+                }
+            }
+        });
+        return methodChannel;
+    }
+
+    @WorkerThread
+    private void onTelemetryMethodCall(MethodCall call, @NonNull Result result) {
+        switch (call.method) {
+            case "event":
+                event(call, result);
+                break;
+            case "trace":
+                trace(call, result);
+                break;
+            case "telemetryBatch":
+                telemetryBatch(call, result);
+                break;
+            case "log":
+                log(call, result);
+                break;
+            case "logBatch":
+                logBatch(call, result);
+                break;
+            case "setAttribute":
+                setAttribute(call, result);
+                break;
+            case "getAttribute":
+                getAttribute(call, result);
+                break;
+            case "clearAttribute":
+                clearAttribute(call, result);
+                break;
+            case "clearAllAttributes":
+                clearAllAttributes(call, result);
+                break;
+            case "setAttributes":
+                setAttributes(call, result);
+                break;
+            case "getAttributes":
+                getAttributes(call, result);
+                break;
+            case "registerNetworkEvent":
+                registerNetworkEvent(call, result);
+                break;
+            case "registerNetworkEvents":
+                registerNetworkEvents(call, result);
+                break;
+            case "beginAttachmentStream":
+                beginAttachmentStream(call, result);
+                break;
+            case "appendAttachmentStream":
+                appendAttachmentStream(call, result);
+                break;
+            case "discardAttachmentStream":
+                discardAttachmentStream(call, result);
+                break;
+            default:
+                result.notImplemented();
+                break;
+        }
+    }
+
     // endregion
     // ----------------------------------------------------------------------------------
 
@@ -355,30 +631,114 @@ public class BugseePlugin implements FlutterPlugin, MethodCallHandler, ActivityA
     // ----------------------------------------------------------------------------------
     // region Execution management
 
-    private void launch(MethodCall call, Result result) {
+    private void launch(MethodCall call, final Result result) {
+        final LaunchTimings timings = new LaunchTimings();
+        final String appToken = call.argument("token");
+        final HashMap<String, Object> launchOptions = call.argument("launchOptions");
+        Boolean isAsync = call.argument("async");
+
+        if (isAsync == null || !isAsync) {
+            long phaseEnd = prepareLaunch(timings, true);
+            result.success(launchSdk(appToken, launchOptions, timings, phaseEnd));
+            return;
+        }
+
+        // SDK must be launched on the UI thread, so only the preparation is
+        // done on the worker, which is just the stale attachments cleanup.
+        // Caller is replied right away, while the actual outcome is reported
+        // via "onLaunchReady", which Dart waits for before its own
+        // post-launch setup
+        result.success((getCurrentActivity() != null || getCurrentContext() != null) ? 1 : 0);
+
+        try {
+            mBackgroundExecutor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    final long phaseEnd = prepareLaunch(timings, false);
+                    mUiDispatchQueue.post(new Runnable() {
+                        @Override
+                        public void run() {
+                            long queueEnd = timings.record(LaunchTimings.PHASE_QUEUE_WAIT, phaseEnd, false);
+                            launchSdk(appToken, launchOptions, timings, queueEnd);
+                        }
+                    });
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            // plugin is already detached from the engine, hence launch right
+            // here, so "onLaunchReady" is still reported
+            long phaseEnd = prepareLaunch(timings, true);
+            launchSdk(appToken, launchOptions, timings, phaseEnd);
+        }
+    }
+
+    /**
+     * @return end of the preparation phase
+     */
+    private long prepareLaunch(LaunchTimings timings, boolean isOnMainThread) {
+        long phaseStart = System.nanoTime();
+        if (!isOnMainThread) {
+            // leftovers of the previous sessions, otherwise removed on the
+            // first report
+            mAttachmentStore.deleteStaleFiles();
+        }
+        return timings.record(LaunchTimings.PHASE_OPTION_PARSING, phaseStart, isOnMainThread);
+    }
+
+    @UiThread
+    private int launchSdk(String appToken, @Nullable HashMap<String, Object> launchOptions,
+            final LaunchTimings timings, long phaseStart) {
         int returnValue = 1;
-        String appToken = call.argument("token");
-        HashMap<String, Object> launchOptions = call.argument("launchOptions");
+        installLaunchHooks();
 
         Activity activity = getCurrentActivity();
         if (activity != null) {
             lastLaunchOptions = launchOptions;
-            Bugsee.launch(activity, appToken, launchOptions);
+            mSdk.launch(activity, appToken, launchOptions);
         } else {
             Context context = getCurrentContext();
             if (context != null) {
                 lastLaunchOptions = launchOptions;
-                Bugsee.launch((Application) context, appToken, launchOptions);
+                mSdk.launch((Application) context, appToken, launchOptions);
             } else {
                 returnValue = 0;
             }
         }
 
-        result.success(returnValue);
+        final long phaseEnd = timings.record(LaunchTimings.PHASE_SDK_INIT, phaseStart, true);
+
+        if (returnValue == 0) {
+            notifyLaunchReady(false, timings);
+        } else {
+            // readiness is reported on the next frame after the launch, as
+            // that's where the SDK starts capturing the screen
+            Choreographer.getInstance().postFrameCallback(new Choreographer.FrameCallback() {
+                @Override
+                public void doFrame(long frameTimeNanos) {
+                    timings.record(LaunchTimings.PHASE_NEXT_FRAME, phaseEnd, false);
+                    notifyLaunchReady(true, timings);
+                }
+            });
+        }
+
+        return returnValue;
+    }
+
+    @UiThread
+    private void notifyLaunchReady(boolean isLaunched, LaunchTimings timings) {
+        timings.finish();
+        HashMap<String, Object> timingsSnapshot = timings.snapshot();
+        mLastLaunchTimings = timingsSnapshot;
+
+        HashMap<String, Object> readiness = new HashMap<>();
+        readiness.put("launched", isLaunched);
+        readiness.put("timings", timingsSnapshot);
+        invokeChannelMethod("onLaunchReady", readiness, null);
     }
 
     private void stop(MethodCall call, Result result) {
-        Bugsee.stop();
+        mAttributeCache.invalidate();
+        mSdk.stop();
         result.success(null);
     }
 
@@ -388,17 +748,19 @@ public class BugseePlugin implements FlutterPlugin, MethodCallHandler, ActivityA
             launchOptions = call.argument("launchOptions");
         }
         launchOptions = (launchOptions == null) ? lastLaunchOptions : launchOptions;
-        Bugsee.relaunch(launchOptions);
+        installLaunchHooks();
+        mAttributeCache.invalidate();
+        mSdk.relaunch(launchOptions);
         result.success(null);
     }
 
     private void pause(MethodCall call, Result result) {
-        Bugsee.pause();
+        mSdk.pause();
         result.success(null);
     }
 
     private void resume(MethodCall call, Result result) {
-        Bugsee.resume();
+        mSdk.resume();
         result.success(null);
     }
 
@@ -417,9 +779,9 @@ public class BugseePlugin implements FlutterPlugin, MethodCallHandler, ActivityA
         }
 
         if (parameters == null) {
-            Bugsee.event(name);
+            mSdk.event(name);
         } else {
-            Bugsee.event(name, parameters);
+            mSdk.event(name, parameters);
         }
 
         result.success(null);
@@ -428,7 +790,38 @@ public class BugseePlugin implements FlutterPlugin, MethodCallHandler, ActivityA
     private void trace(MethodCall call, Result result) {
         String name = call.argument("name");
         Object value = call.argument("value");
-        Bugsee.trace(name, value);
+        mSdk.trace(name, value);
+        result.success(null);
+    }
+
+    private void telemetryBatch(MethodCall call, Result result) {
+        // items are packed into parallel arrays: "kinds" (int[], event or
+        // trace), "names" (List<String>) and "values" (event parameters or
+        // trace values). SDK stamps items on arrival, hence they are replayed
+        // in their original order, so events and traces keep their relative
+        // sequence
+        int[] kinds = call.argument("kinds");
+        List<String> names = call.argument("names");
+        List<Object> values = call.argument("values");
+
+        if (kinds != null && names != null && values != null) {
+            int count = Math.min(kinds.length, Math.min(names.size(), values.size()));
+            for (int i = 0; i < count; i++) {
+                String name = names.get(i);
+                Object value = values.get(i);
+
+                if (kinds[i] == TELEMETRY_TRACE) {
+                    mSdk.trace(name, value);
+                } else if (kinds[i] == TELEMETRY_EVENT) {
+                    if (value instanceof HashMap) {
+                        mSdk.event(name, (HashMap<String, Object>) value);
+                    } else {
+                        mSdk.event(name);
+                    }
+                }
+            }
+        }
+
         result.success(null);
     }
 
@@ -442,7 +835,26 @@ public class BugseePlugin implements FlutterPlugin, MethodCallHandler, ActivityA
         String name = call.argument("text");
         BugseeLogLevel level = call.hasArgument("level") ? BugseeLogLevel.fromIntValue((int) call.argument("level"))
                 : BugseeLogLevel.Info;
-        Bugsee.log(name, level);
+        mSdk.log(name, level);
+        result.success(null);
+    }
+
+    private void logBatch(MethodCall call, Result result) {
+        // entries are packed into parallel arrays: "texts" (List<String>)
+        // and "levels" (int[]). SDK stamps messages on arrival, hence the
+        // batch is drained in its original order
+        List<String> texts = call.argument("texts");
+        int[] levels = call.argument("levels");
+
+        if (texts != null) {
+            for (int i = 0; i < texts.size(); i++) {
+                BugseeLogLevel level = (levels != null && i < levels.length)
+                        ? BugseeLogLevel.fromIntValue(levels[i])
+                        : BugseeLogLevel.Info;
+                mSdk.log(texts.get(i), level);
+            }
+        }
+
         result.success(null);
     }
 
@@ -455,24 +867,51 @@ public class BugseePlugin implements FlutterPlugin, MethodCallHandler, ActivityA
     private void setAttribute(MethodCall call, Result result) {
         String key = call.argument("key");
         Object value = call.argument("value");
-        Bugsee.setAttribute(key, value);
+        mAttributeCache.set(key, value);
         result.success(null);
     }
 
     private void getAttribute(MethodCall call, Result result) {
         String key = call.argument("key");
-        Object value = Bugsee.getAttribute(key);
+        Object value = mAttributeCache.get(key);
         result.success(value);
     }
 
     private void clearAttribute(MethodCall call, Result result) {
         String key = call.argument("key");
-        Bugsee.clearAttribute(key);
+        mAttributeCache.clear(key);
         result.success(null);
     }
 
     private void clearAllAttributes(MethodCall call, Result result) {
-        Bugsee.clearAllAttributes();
+        mAttributeCache.clearAll();
+        result.success(null);
+    }
+
+    private void setAttributes(MethodCall call, Result result) {
+        Map<String, Object> attributes = call.argument("attributes");
+        if (attributes != null) {
+            for (Map.Entry<String, Object> entry : attributes.entrySet()) {
+                mAttributeCache.set(entry.getKey(), entry.getValue());
+            }
+        }
+        result.success(null);
+    }
+
+    private void getAttributes(MethodCall call, Result result) {
+        List<String> keys = call.argument("keys");
+        HashMap<String, Object> attributes = new HashMap<>();
+        if (keys != null) {
+            for (String key : keys) {
+                attributes.put(key, mAttributeCache.get(key));
+            }
+        }
+        result.success(attributes);
+    }
+
+    private void setAttributesWriteDelay(MethodCall call, Result result) {
+        Number writeDelayMs = call.argument("writeDelayMs");
+        mAttributeCache.configure((writeDelayMs != null) ? writeDelayMs.longValue() : 0);
         result.success(null);
     }
 
@@ -484,17 +923,17 @@ public class BugseePlugin implements FlutterPlugin, MethodCallHandler, ActivityA
 
     private void setEmail(MethodCall call, Result result) {
         String value = call.argument("value");
-        Bugsee.setEmail(value);
+        mSdk.setEmail(value);
         result.success(null);
     }
 
     private void getEmail(MethodCall call, Result result) {
-        String value = Bugsee.getEmail();
+        String value = mSdk.getEmail();
         result.success(value);
     }
 
     private void clearEmail(MethodCall call, Result result) {
-        Bugsee.setEmail(null);
+        mSdk.setEmail(null);
         result.success(null);
     }
 
@@ -509,11 +948,13 @@ public class BugseePlugin implements FlutterPlugin, MethodCallHandler, ActivityA
         Boolean isHandled = call.argument("handled");
 
         FlutterManagedException ex = new FlutterManagedException(reason);
+        // attributes are captured along with the exception
+        mAttributeCache.flush();
 
         if (isHandled) {
-            Bugsee.logException(ex);
+            mSdk.logException(ex);
         } else {
-            Bugsee.onUncaughtException(Thread.currentThread(), ex);
+            mSdk.onUncaughtException(Thread.currentThread(), ex);
         }
 
         result.success(null);
@@ -535,7 +976,7 @@ public class BugseePlugin implements FlutterPlugin, MethodCallHandler, ActivityA
         if (rawSeverity != null) {
             severity = IssueSeverity.fromIntValue((int) rawSeverity);
         } else {
-            HashMap<String, Object> options = BugseeInternalAdapter.getLaunchOptions();
+            HashMap<String, Object> options = mSdk.getLaunchOptions();
             if (options != null && options.containsKey(Bugsee.Option.DefaultBugPriority)) {
                 try {
                     severity = IssueSeverity.fromIntValue((int) options.get(Bugsee.Option.DefaultBugPriority));
@@ -548,19 +989,21 @@ public class BugseePlugin implements FlutterPlugin, MethodCallHandler, ActivityA
         }
 
         if (call.method.equals("upload")) {
-            Bugsee.upload(summary, description, severity, labels);
+            mSdk.upload(summary, description, severity, labels);
         } else if (call.method.equals("showReportDialog")) {
-            Bugsee.showReportDialog(summary, description, severity, labels);
+            mSdk.showReportDialog(summary, description, severity, labels);
         }
 
         result.success(null);
     }
 
     private void upload(MethodCall call, final Result result) {
+        mAttributeCache.flush();
         this._parseManualReportingDataAndCallMethod(call, result);
     }
 
     private void showReportDialog(MethodCall call, final Result result) {
+        mAttributeCache.flush();
         this._parseManualReportingDataAndCallMethod(call, result);
     }
 
@@ -571,13 +1014,13 @@ public class BugseePlugin implements FlutterPlugin, MethodCallHandler, ActivityA
     // region Feedback
 
     private void showFeedbackUI(MethodCall call, final Result result) {
-        Bugsee.showFeedbackActivity(null);
+        mSdk.showFeedbackActivity(null);
         result.success(null);
     }
 
     private void setDefaultFeedbackGreeting(MethodCall call, final Result result) {
         String greeting = call.argument("greeting");
-        Bugsee.setDefaultFeedbackGreeting(greeting);
+        mSdk.setDefaultFeedbackGreeting(greeting);
         result.success(null);
     }
 
@@ -605,126 +1048,143 @@ public class BugseePlugin implements FlutterPlugin, MethodCallHandler, ActivityA
     }
 
     private void addSecureRect(MethodCall call, final Result result) {
-        Bugsee.addSecureRectangle(parseSecureRectData(call));
+        mSdk.addSecureRectangle(parseSecureRectData(call));
         result.success(null);
     }
 
     private void removeSecureRect(MethodCall call, final Result result) {
-        Bugsee.removeSecureRectangle(parseSecureRectData(call));
+        mSdk.removeSecureRectangle(parseSecureRectData(call));
         result.success(null);
     }
 
     private void removeAllSecureRects(MethodCall call, final Result result) {
-        Bugsee.removeAllSecureRectangles();
+        mSdk.removeAllSecureRectangles();
         result.success(null);
     }
 
     private void getAllSecureRects(MethodCall call, final Result result) {
-        ArrayList<Rect> rawRectangles = Bugsee.getAllSecureRectangles();
-        ArrayList<List<Double>> finalRectangles = new ArrayList<List<Double>>();
+        ArrayList<Rect> rawRectangles = mSdk.getAllSecureRectangles();
+        result.success(SecureRectBuffer.toDartRects(rawRectangles));
+    }
+
+    private BasicMessageChannel<ByteBuffer> createSecureRectsChannel(BinaryMessenger messenger) {
+        // secure rectangles are sent on every frame, hence they have their own
+        // binary channel. Payload is an array of native-endian int32 values:
+        // [kind, sequence, data...], where data is either a full snapshot in
+        // the same [id, x, y, width, height] layout as "setSecureRectsInternal",
+        // or a delta (see SecureRectMap.applyDelta() for details)
+        BasicMessageChannel<ByteBuffer> rectsChannel = new BasicMessageChannel<>(messenger,
+                SECURE_RECTS_CHANNEL_NAME, BinaryCodec.INSTANCE_DIRECT);
+        rectsChannel.setMessageHandler(new BasicMessageChannel.MessageHandler<ByteBuffer>() {
+            @Override
+            public void onMessage(@Nullable ByteBuffer message, @NonNull BasicMessageChannel.Reply<ByteBuffer> reply) {
+                long startTime = System.nanoTime();
+                int messageSize = (message != null) ? message.remaining() : 0;
+                try {
+                    onSecureRectsMessage(message, reply);
+                } finally {
+                    mBridgeStats.record(BridgeStats.DIRECTION_INCOMING, SECURE_RECTS_CHANNEL_NAME, startTime,
+                            messageSize);
+                }
+            }
+        });
+        return rectsChannel;
+    }
 
-        for (Rect rawRect : rawRectangles) {
-            List<Double> items = Arrays.asList((double) rawRect.left, (double) rawRect.top, (double) rawRect.width(),
-                    (double) rawRect.height());
-            finalRectangles.add(items);
+    private void onSecureRectsMessage(@Nullable ByteBuffer message, @NonNull BasicMessageChannel.Reply<ByteBuffer> reply) {
+        // message is a direct buffer owned by the engine which is valid
+        // only within this call, so we read it in place without copying
+        if ((message == null) || (message.remaining() < 8)) {
+            reply.reply(null);
+            return;
         }
 
-        result.success(finalRectangles);
+        IntBuffer data = message.order(ByteOrder.nativeOrder()).asIntBuffer();
+        int kind = data.get(0);
+        int sequence = data.get(1);
+
+        if (kind == SECURE_RECTS_DELTA) {
+            if (!mSecureRectsSynced || (sequence != mSecureRectsSequence + 1)) {
+                // delta can't be applied to the state we have, hence
+                // ask the caller to send the full snapshot instead
+                ByteBuffer resyncReply = ByteBuffer.allocateDirect(4).order(ByteOrder.nativeOrder());
+                resyncReply.putInt(0, SECURE_RECTS_RESYNC_REPLY);
+                reply.reply(resyncReply);
+                return;
+            }
+
+            reply.reply(null);
+            mSecureRectsSequence = sequence;
+            if (mSecureRects.applyDelta(data, 2)) {
+                publishSecureRects();
+            }
+        } else if (kind == SECURE_RECTS_SNAPSHOT) {
+            reply.reply(null);
+            mSecureRectsSynced = true;
+            mSecureRectsSequence = sequence;
+            updateSecureRects(data, 2);
+        } else {
+            reply.reply(null);
+        }
     }
 
     private void setSecureRectsInternal(MethodCall call, final Result result) {
         result.success(null);
 
+        // legacy path replaces the whole state, hence further deltas
+        // can't be applied on top of it
+        mSecureRectsSynced = false;
+
         int[] boundsData = call.argument("bounds");
-        List<Rect> finalRectangles = null;
-
-        if ((boundsData != null) && (boundsData.length > 0)) {
-            finalRectangles = new ArrayList<>();
-            Set<Integer> idsToKeep = new HashSet<>();
-
-            for (int i = 0; i < boundsData.length; i += 5) {
-                // Rect is constructed as <top left, right bottom>,
-                // hence sum up X + Width, and Y + Height to get
-                // right and bottom correspondingly
-                int rectID = boundsData[i];
-                idsToKeep.add(rectID);
-
-                // we use two rectangles here to check and update the position
-                // of the areas to obscure.
-                //
-                // stateRect:
-                // Rectangle which contains the position from
-                // the previous update. We always check the new data against it
-                //
-                // actualRect:
-                // Rectangle denoting the current bounds of the
-                // target area and which is altered with diffing on each update
-                //
-
-                if (!mInternalRectsMap.containsKey(rectID)) {
-                    Rect newRect = new Rect(
-                            boundsData[i + 1],
-                            boundsData[i + 2],
-                            boundsData[i + 1] + boundsData[i + 3],
-                            boundsData[i + 2] + boundsData[i + 4]);
-                    mInternalRectsMap.put(rectID, new Rect[] {
-                            // this is state check rect
-                            new Rect(newRect),
-                            // this is actual rect
-                            newRect
-                    });
-                    finalRectangles.add(new Rect(newRect));
-                } else {
-                    Rect[] rects = mInternalRectsMap.get(rectID);
-                    if (rects != null) {
-                        Rect stateRect = rects[0];
-                        Rect actualRect = rects[1];
-
-                        int left = boundsData[i + 1];
-                        int top = boundsData[i + 2];
-                        int right = left + boundsData[i + 3];
-                        int bottom = top + boundsData[i + 4];
-
-                        int diffL = left - stateRect.left;
-                        int diffT = top - stateRect.top;
-                        int diffR = right - stateRect.right;
-                        int diffB = bottom - stateRect.bottom;
-
-                        stateRect.set(left, top, right, bottom);
-
-                        if (Math.abs(diffT) <= 1 && Math.abs(diffB) <= 1 && Math.abs(diffL) <= 1
-                                && Math.abs(diffR) <= 1) {
-                            actualRect.set(stateRect);
-                        } else {
-                            left = Math.min(left, actualRect.left);
-                            top = Math.min(top, actualRect.top);
-                            right = Math.max(right, actualRect.right);
-                            bottom = Math.max(bottom, actualRect.bottom);
-
-                            actualRect.set(left, top, right, bottom);
-                        }
+        updateSecureRects((boundsData != null) ? IntBuffer.wrap(boundsData) : null, 0);
+    }
 
-                        finalRectangles.add(new Rect(actualRect));
-                    }
-                }
-            }
+    private void updateSecureRects(@Nullable IntBuffer boundsData, int offset) {
+        mSecureRects.update(boundsData, offset);
+        publishSecureRects();
+    }
 
-            // note that Set<> returned from keySet is connected to the
-            // underlying Map. Hence, modifications to the set are
-            // propagated to the Map itself
-            mInternalRectsMap.keySet().retainAll(idsToKeep);
-        } else {
-            mInternalRectsMap.clear();
-        }
+    private void publishSecureRects() {
+        boolean hasRects = !mSecureRects.isEmpty();
 
-        if (finalRectangles != null) {
-            long currentTimestamp = System.currentTimeMillis();
-            if (currentTimestamp - lastOrientationChangeTimeStamp < 1500) {
-                finalRectangles.add(new Rect(0,0,99999,99999));
+        // orientation matters only while there is something to mask
+        if (orientationTracker != null) {
+            if (hasRects) {
+                orientationTracker.start();
+            } else {
+                orientationTracker.stop();
             }
         }
 
-        Bugsee.setSecureRectsInternal(finalRectangles);
+        long maskTimeLeft = lastOrientationChangeTimeStamp + FULL_SCREEN_MASK_DURATION_MS
+                - System.currentTimeMillis();
+        boolean maskFullScreen = hasRects && (maskTimeLeft > 0);
+        mSecureRects.publish(maskFullScreen);
+
+        // Flutter side sends nothing while the screen is static, hence the
+        // mask is dropped on our own once the rotation is over
+        mUiDispatchQueue.cancel(mSecureRectsRepublish);
+        if (maskFullScreen) {
+            mUiDispatchQueue.postDelayed(mSecureRectsRepublish, maskTimeLeft);
+        }
+    }
+
+    private void setSecureRectsMergeOptions(MethodCall call, final Result result) {
+        Boolean enabled = call.argument("enabled");
+        Integer maxRects = call.argument("maxRects");
+        Integer tileSize = call.argument("tileSize");
+
+        mSecureRects.configureMerging(enabled != null && enabled,
+                maxRects != null ? maxRects : 0,
+                tileSize != null ? tileSize : 0);
+        result.success(null);
+    }
+
+    private void getSecureRectsStats(MethodCall call, final Result result) {
+        HashMap<String, Object> stats = new HashMap<>();
+        stats.put("pushed", mSecureRects.getUpdatesPushed());
+        stats.put("suppressed", mSecureRects.getUpdatesSuppressed());
+        result.success(stats);
     }
 
     // endregion
@@ -747,20 +1207,49 @@ public class BugseePlugin implements FlutterPlugin, MethodCallHandler, ActivityA
     // ----------------------------------------------------------------------------------
     // region Appearance
 
-    private Field getAppearanceField(String fieldName) {
+    /**
+     * Dart addresses properties by the names of its getters, e.g.
+     * reportTextColor, while the SDK fields are capitalized, e.g.
+     * ReportTextColor. Names which are capitalized already are kept as is.
+     */
+    @Nullable
+    private static String getAppearanceFieldName(@Nullable String propertyName) {
+        if (propertyName == null || propertyName.isEmpty()
+                || Character.isUpperCase(propertyName.charAt(0))) {
+            return propertyName;
+        }
+        return Character.toUpperCase(propertyName.charAt(0)) + propertyName.substring(1);
+    }
+
+    @Nullable
+    private Field getAppearanceField(Object appearance, String propertyName) {
+        // lookups are cached per class, including the failed ones, as
+        // reflection is way more expensive than the map access
+        Class<?> appearanceClass = appearance.getClass();
+        HashMap<String, Field> fields = mAppearanceFields.get(appearanceClass);
+        if (fields == null) {
+            fields = new HashMap<>();
+            mAppearanceFields.put(appearanceClass, fields);
+        } else if (fields.containsKey(propertyName)) {
+            return fields.get(propertyName);
+        }
+
+        Field field = null;
         try {
-            return Bugsee.getAppearance().getClass().getDeclaredField(fieldName);
+            field = appearanceClass.getDeclaredField(getAppearanceFieldName(propertyName));
         } catch (Throwable t) {
-            BugseeInternalAdapter.logWarning(TAG, t.toString(), false);
+            mSdk.logWarning(TAG, t.toString(), false);
         }
 
-        return null;
+        fields.put(propertyName, field);
+        return field;
     }
 
     private void setAppearanceProperty(MethodCall call, final Result result) {
         String colorProperty = call.argument("cP");
+        Object appearance = mSdk.getAppearance();
 
-        Field field = getAppearanceField(colorProperty);
+        Field field = getAppearanceField(appearance, colorProperty);
         if (field != null) {
             int cR = call.argument("cR");
             int cG = call.argument("cG");
@@ -769,9 +1258,9 @@ public class BugseePlugin implements FlutterPlugin, MethodCallHandler, ActivityA
             int colorValue = Color.argb(cA, cR, cG, cB);
 
             try {
-                field.set(Bugsee.getAppearance(), colorValue);
+                field.set(appearance, colorValue);
             } catch (Throwable t) {
-                BugseeInternalAdapter.logWarning(TAG, t.toString(), false);
+                mSdk.logWarning(TAG, t.toString(), false);
             }
         }
 
@@ -780,29 +1269,84 @@ public class BugseePlugin implements FlutterPlugin, MethodCallHandler, ActivityA
 
     private void getAppearanceProperty(MethodCall call, final Result result) {
         String colorProperty = call.argument("cP");
+        Object appearance = mSdk.getAppearance();
         HashMap<String, Integer> colorComponents = null;
 
-        Field field = getAppearanceField(colorProperty);
+        Field field = getAppearanceField(appearance, colorProperty);
         if (field != null) {
             try {
-                final int colorValue = (int) field.get(Bugsee.getAppearance());
-
-                colorComponents = new HashMap<String, Integer>() {
-                    {
-                        put("cR", Color.red(colorValue));
-                        put("cG", Color.green(colorValue));
-                        put("cB", Color.blue(colorValue));
-                        put("cA", Color.alpha(colorValue));
-                    }
-                };
+                int colorValue = (int) field.get(appearance);
+
+                colorComponents = new HashMap<>(4);
+                colorComponents.put("cR", Color.red(colorValue));
+                colorComponents.put("cG", Color.green(colorValue));
+                colorComponents.put("cB", Color.blue(colorValue));
+                colorComponents.put("cA", Color.alpha(colorValue));
             } catch (Throwable t) {
-                BugseeInternalAdapter.logWarning(TAG, t.toString(), false);
+                mSdk.logWarning(TAG, t.toString(), false);
             }
         }
 
         result.success(colorComponents);
     }
 
+    /**
+     * Sets multiple colors at once. Arguments are {names, colors}, where
+     * colors is the packed array of ARGB values in the order of names.
+     */
+    private void setAppearance(MethodCall call, final Result result) {
+        List<String> names = call.argument("names");
+        int[] colors = call.argument("colors");
+        Object appearance = mSdk.getAppearance();
+
+        if (names != null && colors != null) {
+            int count = Math.min(names.size(), colors.length);
+            for (int i = 0; i < count; i++) {
+                Field field = getAppearanceField(appearance, names.get(i));
+                if (field != null) {
+                    try {
+                        field.set(appearance, colors[i]);
+                    } catch (Throwable t) {
+                        mSdk.logWarning(TAG, t.toString(), false);
+                    }
+                }
+            }
+        }
+
+        result.success(null);
+    }
+
+    /**
+     * Reads multiple colors at once. Result is {colors, missing}, where
+     * colors is the packed array of ARGB values in the order of requested
+     * names and missing holds indices of the names which couldn't be read.
+     */
+    private void getAppearance(MethodCall call, final Result result) {
+        List<String> names = call.argument("names");
+        Object appearance = mSdk.getAppearance();
+        int count = (names != null) ? names.size() : 0;
+        int[] colors = new int[count];
+        ArrayList<Integer> missing = new ArrayList<>();
+
+        for (int i = 0; i < count; i++) {
+            Field field = getAppearanceField(appearance, names.get(i));
+            try {
+                if (field != null) {
+                    colors[i] = (int) field.get(appearance);
+                    continue;
+                }
+            } catch (Throwable t) {
+                mSdk.logWarning(TAG, t.toString(), false);
+            }
+            missing.add(i);
+        }
+
+        HashMap<String, Object> values = new HashMap<>();
+        values.put("colors", colors);
+        values.put("missing", missing);
+        result.success(values);
+    }
+
     // endregion
     // ----------------------------------------------------------------------------------
 
@@ -812,225 +1356,362 @@ public class BugseePlugin implements FlutterPlugin, MethodCallHandler, ActivityA
     private void setCallbackState(MethodCall call, final Result result) {
         String callbackName = call.argument("callbackName");
         boolean flagState = call.argument("state");
+        int callbackBit = getCallbackBit(callbackName);
 
         if (flagState) {
-            activeCallbacks.add(callbackName);
+            if (callbackBit == CALLBACK_NETWORK_EVENT) {
+                mFilterHooks.installNetworkFilter();
+            } else if (callbackBit == CALLBACK_LOG_EVENT) {
+                mFilterHooks.installLogFilter();
+            }
+            mActiveCallbacks |= callbackBit;
         } else {
-            activeCallbacks.remove(callbackName);
+            mActiveCallbacks &= ~callbackBit;
         }
 
         result.success(null);
     }
 
-    private void filterNetworkEvent(final BugseeNetworkEvent bugseeNetworkEvent,
-            final NetworkEventListener networkEventListener) {
-        if (channel != null) {
-            final NetworkEventType eventStage = bugseeNetworkEvent.getEventType();
-            HashMap<String, Object> serializedEvent = new HashMap<String, Object>() {
-                {
-                    put("url", bugseeNetworkEvent.getUrl());
-                    put("body", bugseeNetworkEvent.getBody());
-                    put("method", bugseeNetworkEvent.getMethod());
-                    // event stage in not a primitive, but rather an enum value
-                    // hence we need to convert it to string to let it be
-                    // properly passed through the codec
-                    put("stage", eventStage != null ? eventStage.toString() : null);
-                    // put("redirectedFrom", ?);
-                    put("headers", bugseeNetworkEvent.getHeaders());
-                }
-            };
+    private static int getCallbackBit(@Nullable String callbackName) {
+        if (callbackName == null) {
+            return 0;
+        }
 
-            channel.invokeMethod("onNetworkEvent", Collections.singletonList(serializedEvent), new Result() {
-                @Override
-                public void success(@Nullable Object result) {
-                    if (result instanceof Map) {
-                        try {
-                            Map<String, Object> resultData = (Map<String, Object>) result;
-                            bugseeNetworkEvent.setBody((String) resultData.get("body"));
-                            bugseeNetworkEvent.setUrl((String) resultData.get("url"));
-                            bugseeNetworkEvent.setHeaders((Map<String, Object>) resultData.get("headers"));
-                            networkEventListener.onEvent(bugseeNetworkEvent);
-                        } catch (Exception e) {
-                            BugseeInternalAdapter.logWarning(TAG,
-                                    "Failed to handle network event filtering result. Error: " + e.toString(), false);
-                        }
-                        return;
-                    }
+        switch (callbackName) {
+            case "onNetworkEvent":
+                return CALLBACK_NETWORK_EVENT;
+            case "onLogEvent":
+                return CALLBACK_LOG_EVENT;
+            case "onAttachmentsForReport":
+                return CALLBACK_ATTACHMENTS;
+            case "onNewFeedbackMessages":
+                return CALLBACK_NEW_FEEDBACK;
+            case "onLifecycleEvent":
+                return CALLBACK_LIFECYCLE_EVENT;
+            default:
+                return 0;
+        }
+    }
 
-                    networkEventListener.onEvent(null);
-                }
+    private boolean isCallbackActive(int callbackBit) {
+        return (mActiveCallbacks & callbackBit) != 0;
+    }
 
-                @Override
-                public void error(String errorCode, @Nullable String errorMessage, @Nullable Object errorDetails) {
-                    // in case of error, do not log anything to prevent possible
-                    // data leakage/disclosure
-                    networkEventListener.onEvent(null);
-                }
+    private void setLogFilterRules(MethodCall call, final Result result) {
+        Map<String, Object> rulesData = call.argument("rules");
+        boolean isValid = true;
 
-                @Override
-                public void notImplemented() {
-                    // this is also called when null is returned by the remote
-                    // end
-                    networkEventListener.onEvent(null);
-                }
-            });
+        LogFilterRules rules = null;
+        try {
+            rules = (rulesData != null) ? LogFilterRules.fromMap(rulesData) : null;
+        } catch (Exception e) {
+            // do not leave the previous rules active, as they are not
+            // what the caller expects
+            isValid = false;
+            mSdk.logWarning(TAG, "Failed to compile log filter rules. Error: " + e.toString(),
+                    false);
         }
+
+        mFilterHooks.setLogFilterRules(rules);
+        result.success(isValid);
     }
 
-    private void filterConsoleEvent(final BugseeLog bugseeLog, final LogListener logListener) {
+    private void setNetworkRedactionRules(MethodCall call, final Result result) {
+        Map<String, Object> rulesData = call.argument("rules");
+        boolean isValid = true;
+
+        NetworkRedactionRules rules = null;
+        try {
+            rules = (rulesData != null) ? NetworkRedactionRules.fromMap(rulesData) : null;
+        } catch (Exception e) {
+            // do not leave the previous rules active, as they are not
+            // what the caller expects
+            isValid = false;
+            mSdk.logWarning(TAG,
+                    "Failed to compile network redaction rules. Error: " + e.toString(), false);
+        }
+
+        mFilterHooks.setNetworkRedactionRules(rules);
+        result.success(isValid);
+    }
+
+    private void setFilterLimits(MethodCall call, final Result result) {
+        configureCallbackWindow(mFilterHooks.getNetworkWindow(), call.<Map<String, Object>>argument("network"));
+        configureCallbackWindow(mFilterHooks.getLogWindow(), call.<Map<String, Object>>argument("log"));
+        configureCallbackWindow(mAttachmentsWindow, call.<Map<String, Object>>argument("attachments"));
+        result.success(null);
+    }
+
+    private void configureCallbackWindow(CallbackWindow window, @Nullable Map<String, Object> limits) {
+        if (limits == null) {
+            return;
+        }
+
+        Number timeoutMs = getParamOrDefault(limits, "timeoutMs", 0);
+        window.configure(this.<Integer>getParamOrDefault(limits, "maxInFlight", 0),
+                timeoutMs.longValue(),
+                this.<Integer>getParamOrDefault(limits, "overflowPolicy", CallbackWindow.POLICY_PASS_THROUGH));
+    }
+
+    @UiThread
+    private void invokeChannelMethod(String method, @Nullable Object arguments, @Nullable Result callback) {
         if (channel != null) {
-            ArrayList<Object> arguments = new ArrayList<Object>() {
-                {
-                    add(bugseeLog.getMessage());
-                    add(bugseeLog.getLevel().getIntValue());
-                }
-            };
+            channel.invokeMethod(method, arguments,
+                    new MeasuredResult(mBridgeStats, method, arguments, callback));
+        }
+    }
 
-            channel.invokeMethod("onLogEvent", arguments, new Result() {
-                @Override
-                public void success(@Nullable Object result) {
-                    if (result instanceof List) {
-                        try {
-                            List<Object> resultArray = (List<Object>) result;
-                            bugseeLog.setMessage((String) resultArray.get(0));
-                            bugseeLog.setLevel(BugseeLogLevel.fromIntValue((int) resultArray.get(1)));
-                            logListener.onLog(bugseeLog);
-                        } catch (Exception e) {
-                            BugseeInternalAdapter.logWarning(TAG,
-                                    "Failed to handle console event filtering result. Error: " + e.toString(), false);
-                        }
-                        return;
-                    }
+    private final class AttachmentsBatch extends FilterBatch<Report> {
+        // attachment streams begun by Dart are bound to this id
+        final int reportId = mAttachmentStore.beginReport();
 
-                    logListener.onLog(null);
-                }
+        AttachmentsBatch(Report report) {
+            super(Collections.singletonList(report), mAttachmentsWindow, mUiDispatchQueue);
+        }
 
-                @Override
-                public void error(String errorCode, @Nullable String errorMessage, @Nullable Object errorDetails) {
-                    // in case of error, do not log anything to prevent possible
-                    // data leakage/disclosure
-                    logListener.onLog(null);
-                }
+        @Override
+        void applyReply(List<Report> reports, @Nullable Object reply) {
+            applyAttachmentsResult(reply, reportId);
+        }
+
+        @Override
+        void applyOverflowPolicy(Report report, int policy) {
+            // there is nothing to pass through or redact,
+            // hence just put an empty attachments list
+            mAttachmentStore.discardReport(reportId);
+            mSdk.setAttachments(new ArrayList<CustomAttachment>());
+        }
 
+        @Override
+        void onLateReply() {
+            // streams are already discarded at the deadline, this only
+            // covers the ones which managed to sneak in meanwhile
+            mAttachmentStore.discardReport(reportId);
+        }
+    }
+
+    private void handleAttachments(final Report report) {
+        AttachmentsBatch batch = new AttachmentsBatch(report);
+
+        if (channel == null) {
+            batch.error("NO_CHANNEL", null, null);
+            return;
+        }
+
+        final int reportId = batch.reportId;
+        List<Object> reportArgs = new ArrayList<Object>() {
+            {
+                add(report.getType().toString());
+                add(report.getSeverity().getIntValue());
+                add(reportId);
+            }
+        };
+
+        invokeChannelMethod("onAttachmentsForReport", reportArgs, batch);
+    }
+
+    private void applyAttachmentsResult(@Nullable final Object result, final int reportId) {
+        try {
+            mBackgroundExecutor.execute(new Runnable() {
                 @Override
-                public void notImplemented() {
-                    // this is also called when null is returned by the remote
-                    // end
-                    logListener.onLog(null);
+                public void run() {
+                    resolveAttachments(result);
+                    // streams which were begun, but not included into the result
+                    mAttachmentStore.discardReport(reportId);
                 }
             });
+        } catch (RejectedExecutionException e) {
+            // plugin is already detached from the engine
+            mAttachmentStore.discardReport(reportId);
+            mSdk.setAttachments(new ArrayList<CustomAttachment>());
         }
     }
 
-    private void handleAttachments(final Report report) {
-        if (channel != null) {
-            List<Object> reportArgs = new ArrayList<Object>() {
-                {
-                    add(report.getType().toString());
-                    add(report.getSeverity().getIntValue());
-                }
-            };
+    @WorkerThread
+    private void resolveAttachments(@Nullable Object result) {
+        ArrayList<CustomAttachment> attachments = new ArrayList<>();
 
-            channel.invokeMethod("onAttachmentsForReport", reportArgs, new Result() {
-                @Override
-                public void success(@Nullable Object result) {
-                    if (result instanceof List) {
-                        try {
-                            List<List<Object>> resultData = (List<List<Object>>) result;
-                            ArrayList<CustomAttachment> attachments = new ArrayList<>();
-
-                            for (List<Object> itemValues : resultData) {
-                                CustomAttachment attachment = null;
-                                String name = (String) itemValues.get(0);
-                                String fileName = (String) itemValues.get(1);
-                                byte[] rawData = (byte[]) itemValues.get(2);
-
-                                if (rawData != null) {
-                                    String dataString = new String(rawData);
-                                    if (!dataString.isEmpty()) {
-                                        attachment = CustomAttachment.fromDataString(dataString);
-                                        attachment.setName(name);
-                                        attachment.setFileName(fileName);
-                                        attachments.add(attachment);
-                                    }
-                                }
+        if (result instanceof List) {
+            mAttachmentStore.deleteStaleFiles();
+
+            long totalSize = 0;
+            long maxTotalSize = mAttachmentStore.getMaxTotalSize();
+
+            // every item is [name, fileName, data, filePath, streamId], where
+            // only one of the data, filePath or streamId is set
+            for (List<Object> itemValues : (List<List<Object>>) result) {
+                try {
+                    String name = (String) itemValues.get(0);
+                    String fileName = (String) itemValues.get(1);
+                    CustomAttachment attachment;
+
+                    if (mAttachmentStore.isAvailable()) {
+                        File file = storeAttachment(itemValues);
+                        if (file == null) {
+                            continue;
+                        }
+
+                        if (mAttachmentCompressor.isEnabled()) {
+                            File compressedFile = compressAttachment(file);
+                            if (compressedFile != null) {
+                                file = compressedFile;
+                                fileName = fileName + AttachmentCompressor.getExtension(compressedFile);
                             }
+                        }
+
+                        if (totalSize + file.length() > maxTotalSize) {
+                            mSdk.logWarning(TAG, "Attachment " + name
+                                    + " is skipped, as total size of attachments exceeds the limit", false);
+                            file.delete();
+                            continue;
+                        }
 
-                            BugseeInternalAdapter.setAttachments(attachments);
-                            return;
-                        } catch (Exception e) {
-                            BugseeInternalAdapter.logWarning(TAG,
-                                    "Failed to handle attachments. Error: " + e.toString(), false);
+                        totalSize += file.length();
+                        attachment = CustomAttachment.fromFile(file.getAbsolutePath());
+                    } else {
+                        // there is no place to store files, hence fall back
+                        // to the in-memory data
+                        byte[] rawData = (byte[]) itemValues.get(2);
+                        if (rawData == null || rawData.length == 0) {
+                            continue;
                         }
+                        attachment = CustomAttachment.fromDataString(new String(rawData, StandardCharsets.UTF_8));
                     }
 
-                    BugseeInternalAdapter.setAttachments(new ArrayList<CustomAttachment>());
+                    attachment.setName(name);
+                    attachment.setFileName(fileName);
+                    attachments.add(attachment);
+                } catch (Exception e) {
+                    mSdk.logWarning(TAG,
+                            "Failed to handle attachment. Error: " + e.toString(), false);
                 }
+            }
+        }
 
-                @Override
-                public void error(String errorCode, @Nullable String errorMessage, @Nullable Object errorDetails) {
-                    // in case of error, just put an empty attachments list
-                    BugseeInternalAdapter.setAttachments(new ArrayList<CustomAttachment>());
-                }
+        mSdk.setAttachments(attachments);
+    }
 
-                @Override
-                public void notImplemented() {
-                    // just put an empty attachments list
-                    BugseeInternalAdapter.setAttachments(new ArrayList<CustomAttachment>());
-                }
-            });
+    @Nullable
+    @WorkerThread
+    private File storeAttachment(List<Object> itemValues) throws IOException {
+        Object streamId = (itemValues.size() > 4) ? itemValues.get(4) : null;
+        if (streamId instanceof Integer) {
+            return mAttachmentStore.finishStream((Integer) streamId);
         }
+
+        Object filePath = (itemValues.size() > 3) ? itemValues.get(3) : null;
+        if (filePath instanceof String) {
+            return mAttachmentStore.copyFile((String) filePath);
+        }
+
+        byte[] rawData = (byte[]) itemValues.get(2);
+        if (rawData != null && rawData.length > 0) {
+            return mAttachmentStore.writeBytes(rawData);
+        }
+
+        return null;
     }
 
-    private void createHandlersAndCallbacks() {
-        Bugsee.setNetworkEventFilter(new NetworkEventFilter() {
-            @Override
-            public void filter(final BugseeNetworkEvent bugseeNetworkEvent,
-                    final NetworkEventListener networkEventListener) {
-                if (!activeCallbacks.contains("onNetworkEvent")) {
-                    networkEventListener.onEvent(bugseeNetworkEvent);
-                }
+    @Nullable
+    @WorkerThread
+    private File compressAttachment(File file) {
+        try {
+            return mAttachmentCompressor.compress(file);
+        } catch (IOException e) {
+            // original file is still intact, hence it's attached uncompressed
+            mSdk.logWarning(TAG,
+                    "Failed to compress attachment. Error: " + e.toString(), false);
+            return null;
+        }
+    }
 
-                ThreadUtils.runOnUiThread(new Runnable() {
-                    @Override
-                    public void run() {
-                        filterNetworkEvent(bugseeNetworkEvent, networkEventListener);
-                    }
-                });
-            }
-        });
+    private void setAttachmentOptions(MethodCall call, final Result result) {
+        Number maxAttachmentSize = call.argument("maxAttachmentSize");
+        Number maxTotalSize = call.argument("maxTotalSize");
+        Integer compression = call.argument("compression");
+        Integer compressionLevel = call.argument("compressionLevel");
+
+        mAttachmentStore.configure(
+                (maxAttachmentSize != null) ? maxAttachmentSize.longValue()
+                        : AttachmentStore.DEFAULT_MAX_ATTACHMENT_SIZE,
+                (maxTotalSize != null) ? maxTotalSize.longValue() : AttachmentStore.DEFAULT_MAX_TOTAL_SIZE);
+        mAttachmentCompressor.configure(
+                (compression != null) ? compression : AttachmentCompressor.FORMAT_NONE,
+                (compressionLevel != null) ? compressionLevel : -1);
+        result.success(null);
+    }
 
-        Bugsee.setLogFilter(new LogFilter() {
-            @Override
-            public void filter(final BugseeLog bugseeLog, final LogListener logListener) {
-                if (!activeCallbacks.contains("onLogEvent")) {
-                    logListener.onLog(bugseeLog);
-                }
+    private void beginAttachmentStream(MethodCall call, final Result result) {
+        Integer reportId = call.argument("reportId");
+        if (reportId == null) {
+            // stream can't be bound to the report, caller falls back to the
+            // in-memory data
+            result.success(null);
+            return;
+        }
 
-                ThreadUtils.runOnUiThread(new Runnable() {
-                    @Override
-                    public void run() {
-                        filterConsoleEvent(bugseeLog, logListener);
-                    }
-                });
+        try {
+            result.success(mAttachmentStore.beginStream(reportId));
+        } catch (IOException e) {
+            // caller falls back to the in-memory data
+            mSdk.logWarning(TAG,
+                    "Failed to create attachment stream. Error: " + e.toString(), false);
+            result.success(null);
+        }
+    }
+
+    private void appendAttachmentStream(MethodCall call, final Result result) {
+        Integer streamId = call.argument("streamId");
+        byte[] data = call.argument("data");
+        boolean acceptsMore = false;
+
+        if (streamId != null && data != null) {
+            try {
+                acceptsMore = mAttachmentStore.appendToStream(streamId, data);
+            } catch (IOException e) {
+                mSdk.logWarning(TAG,
+                        "Failed to write attachment stream. Error: " + e.toString(), false);
+                mAttachmentStore.discardStream(streamId);
             }
-        });
+        }
+
+        result.success(acceptsMore);
+    }
+
+    private void discardAttachmentStream(MethodCall call, final Result result) {
+        Integer streamId = call.argument("streamId");
+        if (streamId != null) {
+            mAttachmentStore.discardStream(streamId);
+        }
+        result.success(null);
+    }
 
-        BugseeInternalAdapter.setAttachmentsAsync(true);
-        Bugsee.setReportAttachmentsProvider(new ReportAttachmentsProvider() {
+    /**
+     * Hooks which are not needed until SDK is launched, so plugin registration
+     * itself doesn't touch the SDK at all
+     */
+    private void installLaunchHooks() {
+        if (mLaunchHooksInstalled) {
+            return;
+        }
+        mLaunchHooksInstalled = true;
+
+        mSdk.setAttachmentsAsync(true);
+        mSdk.setReportAttachmentsProvider(new ReportAttachmentsProvider() {
             @Override
             public ArrayList<CustomAttachment> getAttachments(final Report report) {
-                if (activeCallbacks.contains("onAttachmentsForReport")) {
-                    ThreadUtils.runOnUiThread(new Runnable() {
+                if (isCallbackActive(CALLBACK_ATTACHMENTS) && mAttachmentsWindow.tryAcquire()) {
+                    mUiDispatchQueue.post(new Runnable() {
                         @Override
                         public void run() {
                             handleAttachments(report);
                         }
                     });
                 } else {
-                    // there is no attachments handler set in user code,
-                    // hence just return an empty set
-                    BugseeInternalAdapter.setAttachments(new ArrayList<CustomAttachment>());
+                    // there is no attachments handler set in user code (or
+                    // too many reports wait for it), hence just return an
+                    // empty set
+                    mSdk.setAttachments(new ArrayList<CustomAttachment>());
                 }
 
                 // In async flow, this result will be ignored,
@@ -1039,48 +1720,44 @@ public class BugseePlugin implements FlutterPlugin, MethodCallHandler, ActivityA
             }
         });
 
-        Bugsee.setOnNewFeedbackListener(new OnNewFeedbackListener() {
+        mSdk.setOnNewFeedbackListener(new OnNewFeedbackListener() {
             @Override
             public void onNewFeedback(final List<String> list) {
-                if (channel != null) {
+                if (channel != null && isCallbackActive(CALLBACK_NEW_FEEDBACK)) {
                     // MessageChannel.invokeMethod() must be executed on UI thread,
                     // that is why we need all the logic below
-                    ThreadUtils.runOnUiThread(new Runnable() {
+                    mUiDispatchQueue.post(new Runnable() {
                         @Override
                         public void run() {
-                            if (channel != null) {
-                                channel.invokeMethod("onNewFeedbackMessages", Collections.singletonList(list));
-                            }
+                            invokeChannelMethod("onNewFeedbackMessages", Collections.singletonList(list), null);
                         }
                     });
                 }
             }
         });
 
-        Bugsee.setLifecycleEventsListener(new LifecycleEventListener() {
+        mSdk.setLifecycleEventsListener(new LifecycleEventListener() {
             @Override
             public void onEvent(final LifecycleEventTypes eventType) {
-                if (channel != null) {
+                if (channel != null && isCallbackActive(CALLBACK_LIFECYCLE_EVENT)) {
                     // MessageChannel.invokeMethod() must be executed on UI thread,
                     // that is why we need all the logic below
-                    ThreadUtils.runOnUiThread(new Runnable() {
+                    mUiDispatchQueue.post(new Runnable() {
                         @Override
                         public void run() {
-                            if (channel != null) {
-                                channel.invokeMethod("onLifecycleEvent",
-                                        Collections.singletonList(eventType.getIntValue()));
-                            }
+                            invokeChannelMethod("onLifecycleEvent",
+                                    Collections.singletonList(eventType.getIntValue()), null);
                         }
                     });
                 }
             }
         });
 
-        Bugsee.setAdditionalDataCapture(new AdditionalDataCapture() {
+        mSdk.setAdditionalDataCapture(new AdditionalDataCapture() {
             @Override
             public void captureAdditionalData(@NonNull String kind, @NonNull final AdditionalDataCaptureCallback additionalDataCaptureCallback) {
                 if (channel != null) {
-                    channel.invokeMethod("onCaptureAdditionalData",
+                    invokeChannelMethod("onCaptureAdditionalData",
                             Collections.singletonList(kind), new Result() {
                                 @Override
                                 public void success(@Nullable Object result) {
@@ -1115,27 +1792,39 @@ public class BugseePlugin implements FlutterPlugin, MethodCallHandler, ActivityA
     }
 
     private void registerNetworkEvent(MethodCall call, final Result result) {
-        ExchangeNetworkEvent networkEvent = new ExchangeNetworkEvent();
         Map<String, Object> eventData = call.arguments();
+        mNetworkEvents.register(eventData);
+        result.success(null);
+    }
+
+    private void registerNetworkEvents(MethodCall call, final Result result) {
+        // "events" holds the batch in its original order, while "dropped" is
+        // the number of events which were discarded on the Dart side since
+        // the previous batch because its buffer overflowed
+        List<Map<String, Object>> events = call.argument("events");
+        Integer dropped = call.argument("dropped");
 
-        networkEvent.id = getParamOrDefault(eventData, "id", "");
-        networkEvent.type = getParamOrDefault(eventData, "type", "begin");
-        networkEvent.timestamp = getParamOrDefault(eventData, "timestamp", System.currentTimeMillis());
-        networkEvent.method = getParamOrDefault(eventData, "method", "");
-        networkEvent.url = getParamOrDefault(eventData, "url", "");
-        networkEvent.size = getParamOrDefault(eventData, "size", 0);
-        networkEvent.body = getParamOrDefault(eventData, "body", "");
-        networkEvent.headers = getParamOrDefault(eventData, "headers", new HashMap<String, String>());
-        networkEvent.isSupplement = getParamOrDefault(eventData, "isSupplement", false);
+        mNetworkEvents.registerAll(events);
 
-        if (eventData.containsKey("status")) {
-            networkEvent.status = getParamOrDefault(eventData, "status", 200);
+        if (dropped != null && dropped > 0) {
+            long totalDropped = mNetworkEvents.addDropped(dropped);
+            mSdk.logWarning(TAG, "Network events buffer overflowed, " + dropped
+                    + " event(s) were dropped (" + totalDropped + " in total)", false);
         }
 
-        networkEvent.error = getParamOrDefault(eventData, "error", null);
+        result.success(mNetworkEvents.getDropped());
+    }
 
-        BugseeInternalAdapter.addNetworkEvent(networkEvent);
-        result.success(null);
+    private void getBridgeStats(MethodCall call, final Result result) {
+        HashMap<String, Object> stats = mBridgeStats.snapshot();
+        stats.put("secureRectUpdatesPushed", mSecureRects.getUpdatesPushed());
+        stats.put("secureRectUpdatesSuppressed", mSecureRects.getUpdatesSuppressed());
+        stats.put("droppedNetworkEvents", mNetworkEvents.getDropped());
+        stats.put("networkFilterWindow", mFilterHooks.getNetworkWindow().snapshot());
+        stats.put("logFilterWindow", mFilterHooks.getLogWindow().snapshot());
+        stats.put("attachmentsWindow", mAttachmentsWindow.snapshot());
+        stats.put("launchTimings", mLastLaunchTimings);
+        result.success(stats);
     }
 
     // endregion
@@ -1169,101 +1858,182 @@ public class BugseePlugin implements FlutterPlugin, MethodCallHandler, ActivityA
         void onOrientationChanged(Orientation newOrientation);
     }
 
+    /**
+     * Tracks the orientation of the default display. Changes are reported by
+     * the display (or configuration on API 16) callbacks, so nothing is
+     * computed while the screen is not rotated. Tracker is started only when
+     * there is something to mask, see {@link #publishSecureRects()}.
+     */
     private class OrientationTracker {
         private final WeakReference<Context> contextRef;
         private final OrientationTrackerCallback callback;
-        private OrientationEventListener platformListener;
+        private final Handler handler = new Handler(Looper.getMainLooper());
+        @Nullable
+        private DisplayManager.DisplayListener displayListener;
+        @Nullable
+        private ComponentCallbacks configurationListener;
+        private boolean isNaturalLandscape = false;
         private Orientation lastOrientation = null;
+        // set once listener can't be registered, so start() which is called
+        // on every secure rectangles update doesn't retry it each time.
+        // Tracker is re-created on the next attach
+        private boolean isUnavailable = false;
 
         public OrientationTracker(WeakReference<Context> contextRef, OrientationTrackerCallback callback) {
             this.contextRef = contextRef;
             this.callback = callback;
         }
 
+        public boolean isActive() {
+            return displayListener != null || configurationListener != null;
+        }
+
         public void start() {
-            if (platformListener == null && contextRef != null && contextRef.get() != null) {
-                platformListener = new OrientationEventListener(contextRef.get(), SensorManager.SENSOR_DELAY_NORMAL) {
+            if (isActive() || isUnavailable) {
+                return;
+            }
+
+            Context context = (contextRef != null) ? contextRef.get() : null;
+            if (context == null) {
+                isUnavailable = true;
+                return;
+            }
+
+            // natural orientation of the device doesn't change, so it's
+            // resolved once per start instead of on every change
+            isNaturalLandscape = getDefaultOrientation(context) == Configuration.ORIENTATION_LANDSCAPE;
+            lastOrientation = getCurrentOrientation();
+
+            if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN_MR1) {
+                startDisplayListener(context);
+            } else {
+                // configuration changes are not reported for 180 degrees
+                // rotations, but it's the best we have on API 16
+                configurationListener = new ComponentCallbacks() {
                     @Override
-                    public void onOrientationChanged(int angle) {
-                        Orientation newOrientation = calculateSensorOrientation(angle);
-                        if (!newOrientation.equals(lastOrientation)) {
-                            lastOrientation = newOrientation;
-                            callback.onOrientationChanged(newOrientation);
-                        }
+                    public void onConfigurationChanged(@NonNull Configuration newConfig) {
+                        handleChange();
+                    }
+
+                    @Override
+                    public void onLowMemory() {
                     }
                 };
-                if (platformListener.canDetectOrientation()) {
-                    platformListener.enable();
-                }
+                context.getApplicationContext().registerComponentCallbacks(configurationListener);
             }
+
+            isUnavailable = !isActive();
+        }
+
+        @RequiresApi(Build.VERSION_CODES.JELLY_BEAN_MR1)
+        private void startDisplayListener(Context context) {
+            DisplayManager displayManager = (DisplayManager) context.getSystemService(Context.DISPLAY_SERVICE);
+            if (displayManager == null) {
+                return;
+            }
+
+            displayListener = new DisplayManager.DisplayListener() {
+                @Override
+                public void onDisplayAdded(int displayId) {
+                }
+
+                @Override
+                public void onDisplayRemoved(int displayId) {
+                }
+
+                @Override
+                public void onDisplayChanged(int displayId) {
+                    if (displayId == Display.DEFAULT_DISPLAY) {
+                        handleChange();
+                    }
+                }
+            };
+            displayManager.registerDisplayListener(displayListener, handler);
         }
 
         public void stop() {
-            if (platformListener != null) {
-                platformListener.disable();
-                platformListener = null;
+            Context context = (contextRef != null) ? contextRef.get() : null;
+
+            if (displayListener != null) {
+                if (context != null && Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN_MR1) {
+                    DisplayManager displayManager = (DisplayManager) context.getSystemService(
+                            Context.DISPLAY_SERVICE);
+                    if (displayManager != null) {
+                        displayManager.unregisterDisplayListener(displayListener);
+                    }
+                }
+                displayListener = null;
+            }
+
+            if (configurationListener != null) {
+                if (context != null) {
+                    context.getApplicationContext().unregisterComponentCallbacks(configurationListener);
+                }
+                configurationListener = null;
             }
         }
 
-        public Orientation calculateSensorOrientation(int angle) {
-            angle += 45; // tolerance
+        private void handleChange() {
+            Orientation newOrientation = getCurrentOrientation();
+            if (!newOrientation.equals(lastOrientation)) {
+                lastOrientation = newOrientation;
+                callback.onOrientationChanged(newOrientation);
+            }
+        }
 
-            // orientation of 0 denotes "portrait" for smartphones
-            // and "landscape" for tablets (aka default mode). Hence we
-            // need to use proper offset applying an offset.
-            int defaultDeviceOrientation = getDefaultOrientation();
-            if (defaultDeviceOrientation == Configuration.ORIENTATION_LANDSCAPE) {
-                angle += 90;
+        private Orientation getCurrentOrientation() {
+            Context context = contextRef.get();
+            if (context == null) {
+                return Orientation.Unknown;
             }
 
-            angle = angle % 360;
-            int screenOrientation = angle / 90;
+            int rotation = ((WindowManager) context.getSystemService(Context.WINDOW_SERVICE))
+                    .getDefaultDisplay().getRotation();
+
+            // rotation of 0 denotes "portrait" for smartphones and
+            // "landscape" for tablets (aka default mode), hence the offset
+            int screenOrientation = (rotation + (isNaturalLandscape ? 1 : 0)) % 4;
 
             switch (screenOrientation) {
                 case 0:
                     return Orientation.PortraitUp;
                 case 1:
-                    return Orientation.LandscapeRight;
+                    return Orientation.LandscapeLeft;
                 case 2:
                     return Orientation.PortraitDown;
                 case 3:
-                    return Orientation.LandscapeLeft;
+                    return Orientation.LandscapeRight;
                 default:
                     return Orientation.Unknown;
             }
         }
 
-        private int getDefaultOrientation() {
-            Context context = contextRef.get();
+        private int getDefaultOrientation(Context context) {
+            Configuration config = context.getResources().getConfiguration();
+            int rotation = ((WindowManager) context.getSystemService(Context.WINDOW_SERVICE))
+                    .getDefaultDisplay().getRotation();
 
-            if (context != null) {
-                Configuration config = context.getResources().getConfiguration();
-                int rotation = ((WindowManager) context.getSystemService(Context.WINDOW_SERVICE))
-                        .getDefaultDisplay().getRotation();
-
-                if (((rotation == Surface.ROTATION_180 || rotation == Surface.ROTATION_0) &&
-                        config.orientation == Configuration.ORIENTATION_LANDSCAPE)
-                        || ((rotation == Surface.ROTATION_90 || rotation == Surface.ROTATION_270) &&
-                        config.orientation == Configuration.ORIENTATION_PORTRAIT)) {
-                    return Configuration.ORIENTATION_LANDSCAPE;
-                } else {
-                    return Configuration.ORIENTATION_PORTRAIT;
-                }
+            if (((rotation == Surface.ROTATION_180 || rotation == Surface.ROTATION_0) &&
+                    config.orientation == Configuration.ORIENTATION_LANDSCAPE)
+                    || ((rotation == Surface.ROTATION_90 || rotation == Surface.ROTATION_270) &&
+                    config.orientation == Configuration.ORIENTATION_PORTRAIT)) {
+                return Configuration.ORIENTATION_LANDSCAPE;
+            } else {
+                return Configuration.ORIENTATION_PORTRAIT;
             }
-
-            // if we can't get anything - just return some default
-            return Configuration.ORIENTATION_PORTRAIT;
         }
     }
 
     private void setNewOrientation(Orientation newOrientation) {
         lastOrientationChangeTimeStamp = System.currentTimeMillis();
 
-        if (mInternalRectsMap.size() > 0) {
+        if (!mSecureRects.isEmpty()) {
             // if we have secure rectangles and device is rotated,
             // obscure the whole screen to make sure nothing is
             // leaked
-            Bugsee.setSecureRectsInternal(Collections.singletonList(new Rect(0, 0, 99999, 99999)));
+            mSecureRects.maskFullScreen();
+            mUiDispatchQueue.cancel(mSecureRectsRepublish);
+            mUiDispatchQueue.postDelayed(mSecureRectsRepublish, FULL_SCREEN_MASK_DURATION_MS);
         }
     }
 
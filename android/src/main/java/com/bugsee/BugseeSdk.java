@@ -0,0 +1,152 @@
+package com.bugsee;
+
+import android.app.Activity;
+import android.app.Application;
+import android.content.Context;
+import android.graphics.Rect;
+
+import androidx.annotation.Nullable;
+
+import com.bugsee.library.attachment.CustomAttachment;
+import com.bugsee.library.attachment.ReportAttachmentsProvider;
+import com.bugsee.library.data.AdditionalDataCapture;
+import com.bugsee.library.data.IssueSeverity;
+import com.bugsee.library.events.BugseeLogLevel;
+import com.bugsee.library.exchange.ExchangeNetworkEvent;
+import com.bugsee.library.feedback.OnNewFeedbackListener;
+import com.bugsee.library.lifecycle.LifecycleEventListener;
+import com.bugsee.library.logs.LogFilter;
+import com.bugsee.library.network.NetworkEventFilter;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+
+/**
+ * All the calls plugin makes to the underlying SDK, i.e. to the static
+ * {@link com.bugsee.library.Bugsee} and
+ * {@link com.bugsee.library.BugseeInternalAdapter} APIs. Methods mirror the
+ * SDK ones, see {@link DefaultBugseeSdk} for the actual implementation.
+ *
+ * Having them behind the interface allows to run the plugin against the
+ * stand-in SDK, e.g. to load test the bridge without a device.
+ */
+interface BugseeSdk {
+    // region Lifecycle
+
+    void launch(Activity activity, String appToken, @Nullable HashMap<String, Object> launchOptions);
+
+    void launch(Application application, String appToken, @Nullable HashMap<String, Object> launchOptions);
+
+    void relaunch(@Nullable HashMap<String, Object> launchOptions);
+
+    void stop();
+
+    void pause();
+
+    void resume();
+
+    // endregion
+
+    // region Telemetry
+
+    void event(String name);
+
+    void event(String name, HashMap<String, Object> parameters);
+
+    void trace(String name, Object value);
+
+    void log(String text, BugseeLogLevel level);
+
+    void addNetworkEvent(ExchangeNetworkEvent event);
+
+    // endregion
+
+    // region Attributes
+
+    void setAttribute(String key, @Nullable Object value);
+
+    @Nullable
+    Object getAttribute(String key);
+
+    void clearAttribute(String key);
+
+    void clearAllAttributes();
+
+    void setEmail(@Nullable String email);
+
+    @Nullable
+    String getEmail();
+
+    // endregion
+
+    // region Reports and feedback
+
+    void logException(Exception exception);
+
+    void onUncaughtException(Thread thread, Throwable throwable);
+
+    void upload(String summary, String description, IssueSeverity severity, ArrayList<String> labels);
+
+    void showReportDialog(String summary, String description, IssueSeverity severity, ArrayList<String> labels);
+
+    void showFeedbackActivity(@Nullable Context context);
+
+    void setDefaultFeedbackGreeting(String greeting);
+
+    @Nullable
+    HashMap<String, Object> getLaunchOptions();
+
+    void setAttachments(ArrayList<CustomAttachment> attachments);
+
+    void setAttachmentsAsync(boolean isAsync);
+
+    // endregion
+
+    // region Secure rectangles
+
+    void addSecureRectangle(Rect rectangle);
+
+    void removeSecureRectangle(Rect rectangle);
+
+    void removeAllSecureRectangles();
+
+    ArrayList<Rect> getAllSecureRectangles();
+
+    void setSecureRectsInternal(@Nullable List<Rect> rectangles);
+
+    // endregion
+
+    // region Appearance
+
+    Object getAppearance();
+
+    // endregion
+
+    // region Callbacks
+
+    void setNetworkEventFilter(NetworkEventFilter filter);
+
+    void setLogFilter(LogFilter filter);
+
+    void setReportAttachmentsProvider(ReportAttachmentsProvider provider);
+
+    void setOnNewFeedbackListener(OnNewFeedbackListener listener);
+
+    void setLifecycleEventsListener(LifecycleEventListener listener);
+
+    void setAdditionalDataCapture(AdditionalDataCapture capture);
+
+    // endregion
+
+    // region Internals
+
+    /**
+     * Stops internal mechanics of the SDK, see BugseeInternalAdapter.stop()
+     */
+    void stopInternal(boolean release);
+
+    void logWarning(String tag, String message, boolean report);
+
+    // endregion
+}
@@ -0,0 +1,89 @@
+package com.bugsee;
+
+import java.util.HashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounds the number of items which wait for the reply from a Dart callback
+ * of a single type. Items which don't fit into the window are handled
+ * natively according to the overflow policy, and the ones which didn't get
+ * the reply in time are handled the same way.
+ *
+ * Counters can be updated from any thread, configuration is published
+ * through volatile fields.
+ */
+final class CallbackWindow {
+    // overflow policies, values match BugseeFilterOverflowPolicy on the Dart side
+    public static final int POLICY_PASS_THROUGH = 0;
+    public static final int POLICY_DROP = 1;
+    public static final int POLICY_REDACT_ALL = 2;
+
+    private volatile int maxInFlight;
+    private volatile long timeoutMs;
+    private volatile int overflowPolicy;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicLong overflowed = new AtomicLong();
+    private final AtomicLong timedOut = new AtomicLong();
+
+    CallbackWindow(int maxInFlight, long timeoutMs, int overflowPolicy) {
+        configure(maxInFlight, timeoutMs, overflowPolicy);
+    }
+
+    /**
+     * @param maxInFlight    maximum number of items awaiting the reply, zero
+     *                       or negative value removes the limit
+     * @param timeoutMs      time to wait for the reply, zero or negative value
+     *                       means waiting indefinitely
+     * @param overflowPolicy one of the POLICY_* constants
+     */
+    public void configure(int maxInFlight, long timeoutMs, int overflowPolicy) {
+        this.maxInFlight = maxInFlight;
+        this.timeoutMs = timeoutMs;
+        this.overflowPolicy = overflowPolicy;
+    }
+
+    public long getTimeoutMs() {
+        return timeoutMs;
+    }
+
+    public int getOverflowPolicy() {
+        return overflowPolicy;
+    }
+
+    /**
+     * Reserves the place in the window for one item
+     *
+     * @return false if window is full, in which case overflow is recorded
+     */
+    public boolean tryAcquire() {
+        while (true) {
+            int current = inFlight.get();
+            int limit = maxInFlight;
+            if (limit > 0 && current >= limit) {
+                overflowed.incrementAndGet();
+                return false;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    public void release(int count) {
+        inFlight.addAndGet(-count);
+    }
+
+    public void recordTimeout(int count) {
+        timedOut.addAndGet(count);
+    }
+
+    public HashMap<String, Object> snapshot() {
+        HashMap<String, Object> result = new HashMap<>();
+        result.put("inFlight", inFlight.get());
+        result.put("overflowed", overflowed.get());
+        result.put("timedOut", timedOut.get());
+        return result;
+    }
+}
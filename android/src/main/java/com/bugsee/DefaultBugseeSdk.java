@@ -0,0 +1,266 @@
+package com.bugsee;
+
+import android.app.Activity;
+import android.app.Application;
+import android.content.Context;
+import android.graphics.Rect;
+
+import androidx.annotation.Nullable;
+
+import com.bugsee.library.Bugsee;
+import com.bugsee.library.BugseeInternalAdapter;
+import com.bugsee.library.attachment.CustomAttachment;
+import com.bugsee.library.attachment.ReportAttachmentsProvider;
+import com.bugsee.library.data.AdditionalDataCapture;
+import com.bugsee.library.data.IssueSeverity;
+import com.bugsee.library.events.BugseeLogLevel;
+import com.bugsee.library.exchange.ExchangeNetworkEvent;
+import com.bugsee.library.feedback.OnNewFeedbackListener;
+import com.bugsee.library.lifecycle.LifecycleEventListener;
+import com.bugsee.library.logs.LogFilter;
+import com.bugsee.library.network.NetworkEventFilter;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+
+/**
+ * Passes all the calls through to the static APIs of the underlying SDK
+ */
+final class DefaultBugseeSdk implements BugseeSdk {
+    // region Lifecycle
+
+    @Override
+    public void launch(Activity activity, String appToken, @Nullable HashMap<String, Object> launchOptions) {
+        Bugsee.launch(activity, appToken, launchOptions);
+    }
+
+    @Override
+    public void launch(Application application, String appToken, @Nullable HashMap<String, Object> launchOptions) {
+        Bugsee.launch(application, appToken, launchOptions);
+    }
+
+    @Override
+    public void relaunch(@Nullable HashMap<String, Object> launchOptions) {
+        Bugsee.relaunch(launchOptions);
+    }
+
+    @Override
+    public void stop() {
+        Bugsee.stop();
+    }
+
+    @Override
+    public void pause() {
+        Bugsee.pause();
+    }
+
+    @Override
+    public void resume() {
+        Bugsee.resume();
+    }
+
+    // endregion
+
+    // region Telemetry
+
+    @Override
+    public void event(String name) {
+        Bugsee.event(name);
+    }
+
+    @Override
+    public void event(String name, HashMap<String, Object> parameters) {
+        Bugsee.event(name, parameters);
+    }
+
+    @Override
+    public void trace(String name, Object value) {
+        Bugsee.trace(name, value);
+    }
+
+    @Override
+    public void log(String text, BugseeLogLevel level) {
+        Bugsee.log(text, level);
+    }
+
+    @Override
+    public void addNetworkEvent(ExchangeNetworkEvent event) {
+        BugseeInternalAdapter.addNetworkEvent(event);
+    }
+
+    // endregion
+
+    // region Attributes
+
+    @Override
+    public void setAttribute(String key, @Nullable Object value) {
+        Bugsee.setAttribute(key, value);
+    }
+
+    @Nullable
+    @Override
+    public Object getAttribute(String key) {
+        return Bugsee.getAttribute(key);
+    }
+
+    @Override
+    public void clearAttribute(String key) {
+        Bugsee.clearAttribute(key);
+    }
+
+    @Override
+    public void clearAllAttributes() {
+        Bugsee.clearAllAttributes();
+    }
+
+    @Override
+    public void setEmail(@Nullable String email) {
+        Bugsee.setEmail(email);
+    }
+
+    @Nullable
+    @Override
+    public String getEmail() {
+        return Bugsee.getEmail();
+    }
+
+    // endregion
+
+    // region Reports and feedback
+
+    @Override
+    public void logException(Exception exception) {
+        Bugsee.logException(exception);
+    }
+
+    @Override
+    public void onUncaughtException(Thread thread, Throwable throwable) {
+        Bugsee.onUncaughtException(thread, throwable);
+    }
+
+    @Override
+    public void upload(String summary, String description, IssueSeverity severity, ArrayList<String> labels) {
+        Bugsee.upload(summary, description, severity, labels);
+    }
+
+    @Override
+    public void showReportDialog(String summary, String description, IssueSeverity severity,
+            ArrayList<String> labels) {
+        Bugsee.showReportDialog(summary, description, severity, labels);
+    }
+
+    @Override
+    public void showFeedbackActivity(@Nullable Context context) {
+        Bugsee.showFeedbackActivity(context);
+    }
+
+    @Override
+    public void setDefaultFeedbackGreeting(String greeting) {
+        Bugsee.setDefaultFeedbackGreeting(greeting);
+    }
+
+    @Nullable
+    @Override
+    public HashMap<String, Object> getLaunchOptions() {
+        return BugseeInternalAdapter.getLaunchOptions();
+    }
+
+    @Override
+    public void setAttachments(ArrayList<CustomAttachment> attachments) {
+        BugseeInternalAdapter.setAttachments(attachments);
+    }
+
+    @Override
+    public void setAttachmentsAsync(boolean isAsync) {
+        BugseeInternalAdapter.setAttachmentsAsync(isAsync);
+    }
+
+    // endregion
+
+    // region Secure rectangles
+
+    @Override
+    public void addSecureRectangle(Rect rectangle) {
+        Bugsee.addSecureRectangle(rectangle);
+    }
+
+    @Override
+    public void removeSecureRectangle(Rect rectangle) {
+        Bugsee.removeSecureRectangle(rectangle);
+    }
+
+    @Override
+    public void removeAllSecureRectangles() {
+        Bugsee.removeAllSecureRectangles();
+    }
+
+    @Override
+    public ArrayList<Rect> getAllSecureRectangles() {
+        return Bugsee.getAllSecureRectangles();
+    }
+
+    @Override
+    public void setSecureRectsInternal(@Nullable List<Rect> rectangles) {
+        Bugsee.setSecureRectsInternal(rectangles);
+    }
+
+    // endregion
+
+    // region Appearance
+
+    @Override
+    public Object getAppearance() {
+        return Bugsee.getAppearance();
+    }
+
+    // endregion
+
+    // region Callbacks
+
+    @Override
+    public void setNetworkEventFilter(NetworkEventFilter filter) {
+        Bugsee.setNetworkEventFilter(filter);
+    }
+
+    @Override
+    public void setLogFilter(LogFilter filter) {
+        Bugsee.setLogFilter(filter);
+    }
+
+    @Override
+    public void setReportAttachmentsProvider(ReportAttachmentsProvider provider) {
+        Bugsee.setReportAttachmentsProvider(provider);
+    }
+
+    @Override
+    public void setOnNewFeedbackListener(OnNewFeedbackListener listener) {
+        Bugsee.setOnNewFeedbackListener(listener);
+    }
+
+    @Override
+    public void setLifecycleEventsListener(LifecycleEventListener listener) {
+        Bugsee.setLifecycleEventsListener(listener);
+    }
+
+    @Override
+    public void setAdditionalDataCapture(AdditionalDataCapture capture) {
+        Bugsee.setAdditionalDataCapture(capture);
+    }
+
+    // endregion
+
+    // region Internals
+
+    @Override
+    public void stopInternal(boolean release) {
+        BugseeInternalAdapter.stop(release);
+    }
+
+    @Override
+    public void logWarning(String tag, String message, boolean report) {
+        BugseeInternalAdapter.logWarning(tag, message, report);
+    }
+
+    // endregion
+}
@@ -0,0 +1,110 @@
+package com.bugsee;
+
+import androidx.annotation.Nullable;
+import androidx.annotation.UiThread;
+
+import java.util.List;
+
+import io.flutter.plugin.common.MethodChannel.Result;
+
+/**
+ * Items passed to the Dart callback in a single call. Batch is completed
+ * either by the reply or by the deadline, whichever comes first. Items
+ * are released on completion, so late replies don't keep them pinned.
+ *
+ * Replies and the deadline are expected on the UI thread.
+ */
+abstract class FilterBatch<T> implements Result, Runnable {
+    private final CallbackWindow window;
+    private final UiScheduler scheduler;
+    @Nullable
+    private List<T> items;
+
+    FilterBatch(List<T> items, CallbackWindow window, UiScheduler scheduler) {
+        this.items = items;
+        this.window = window;
+        this.scheduler = scheduler;
+
+        long timeoutMs = window.getTimeoutMs();
+        if (timeoutMs > 0) {
+            scheduler.postDelayed(this, timeoutMs);
+        }
+    }
+
+    /**
+     * Applies the reply from Dart to the items. Null reply means
+     * the items must be skipped
+     */
+    abstract void applyReply(List<T> items, @Nullable Object reply);
+
+    /**
+     * Handles the item which didn't get the reply in time
+     */
+    abstract void applyOverflowPolicy(T item, int policy);
+
+    /**
+     * Called when the reply came after the deadline and was dropped
+     */
+    void onLateReply() {
+    }
+
+    @Nullable
+    private List<T> complete() {
+        List<T> completedItems = items;
+        if (completedItems != null) {
+            items = null;
+            scheduler.cancel(this);
+            window.release(completedItems.size());
+        }
+        return completedItems;
+    }
+
+    @Override
+    public void success(@Nullable Object result) {
+        // items are null when the reply came after the deadline
+        List<T> completedItems = complete();
+        if (completedItems != null) {
+            applyReply(completedItems, result);
+        } else {
+            onLateReply();
+        }
+    }
+
+    @Override
+    public void error(String errorCode, @Nullable String errorMessage, @Nullable Object errorDetails) {
+        // in case of error, do not log anything to prevent possible
+        // data leakage/disclosure
+        List<T> completedItems = complete();
+        if (completedItems != null) {
+            applyReply(completedItems, null);
+        } else {
+            onLateReply();
+        }
+    }
+
+    @Override
+    public void notImplemented() {
+        // this is also called when null is returned by the remote
+        // end
+        List<T> completedItems = complete();
+        if (completedItems != null) {
+            applyReply(completedItems, null);
+        } else {
+            onLateReply();
+        }
+    }
+
+    @Override
+    @UiThread
+    public void run() {
+        // deadline has passed
+        List<T> completedItems = complete();
+        if (completedItems != null) {
+            window.recordTimeout(completedItems.size());
+            int policy = window.getOverflowPolicy();
+            for (T item : completedItems) {
+                applyOverflowPolicy(item, policy);
+            }
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package com.bugsee;
+
+import androidx.annotation.Nullable;
+import androidx.annotation.UiThread;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Passes items captured by the SDK (network events, log lines) to the Dart
+ * filter. Items can be offered from any thread, they are collected on the UI
+ * thread and sent to Dart in batches, while the window bounds the number of
+ * items waiting for the reply (see {@link CallbackWindow}).
+ *
+ * Items offered before the UI thread gets to them go in a single batch, so a
+ * burst costs one channel call per UI queue drain.
+ */
+final class FilterDispatcher<T> {
+    interface Handler<T> {
+        /**
+         * Sends the items to Dart, the reply must be passed to the batch.
+         * Called on the UI thread
+         */
+        @UiThread
+        void send(List<T> items, FilterBatch<T> batch);
+
+        /**
+         * Applies the reply from Dart to the items. Null reply means
+         * the items must be skipped
+         */
+        void applyReply(List<T> items, @Nullable Object reply);
+
+        /**
+         * Handles the item which can't wait for the reply, either because the
+         * window is full or the deadline has passed. Can be called from any
+         * thread
+         */
+        void applyOverflowPolicy(T item, int policy);
+    }
+
+    private final CallbackWindow window;
+    private final UiScheduler scheduler;
+    private final Handler<T> handler;
+    private final ConcurrentLinkedQueue<T> pending = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean flushScheduled = new AtomicBoolean(false);
+
+    private final Runnable flushRunnable = new Runnable() {
+        @Override
+        public void run() {
+            flush();
+        }
+    };
+
+    FilterDispatcher(CallbackWindow window, UiScheduler scheduler, Handler<T> handler) {
+        this.window = window;
+        this.scheduler = scheduler;
+        this.handler = handler;
+    }
+
+    public void offer(T item) {
+        if (!window.tryAcquire()) {
+            // too many items are waiting for Dart already
+            handler.applyOverflowPolicy(item, window.getOverflowPolicy());
+            return;
+        }
+
+        pending.offer(item);
+        if (flushScheduled.compareAndSet(false, true)) {
+            scheduler.post(flushRunnable);
+        }
+    }
+
+    @UiThread
+    private void flush() {
+        // reset the flag before polling, so items offered from now on
+        // schedule the next flush, while the ones offered earlier are
+        // guaranteed to be polled below
+        flushScheduled.set(false);
+
+        T item = pending.poll();
+        if (item == null) {
+            return;
+        }
+
+        ArrayList<T> items = new ArrayList<>();
+        do {
+            items.add(item);
+            item = pending.poll();
+        } while (item != null);
+
+        handler.send(items, new FilterBatch<T>(items, window, scheduler) {
+            @Override
+            void applyReply(List<T> items, @Nullable Object reply) {
+                handler.applyReply(items, reply);
+            }
+
+            @Override
+            void applyOverflowPolicy(T item, int policy) {
+                handler.applyOverflowPolicy(item, policy);
+            }
+        });
+    }
+}
@@ -0,0 +1,487 @@
+package com.bugsee;
+
+import androidx.annotation.Nullable;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Masks values of JSON documents selected by simple JSON paths. Document is
+ * scanned in a single pass without building the object tree, and the output
+ * is built only when something was actually masked, so the formatting of
+ * the untouched parts is preserved as is.
+ *
+ * Supported path syntax:
+ * $.key, $['key'] - member of the object
+ * $.*             - any member of the object or any element of the array
+ * $[2], $[*]      - specific or any element of the array
+ * $..key          - member at any depth below
+ *
+ * Path which doesn't start with "$" is treated as a member name at any
+ * depth, i.e. "password" is the same as "$..password".
+ *
+ * Masking fails closed: if the document can't be scanned completely (it's
+ * malformed or truncated, its top level value is neither object nor array,
+ * or it's nested deeper than {@link #MAX_DEPTH}), selected values may be in
+ * the part we didn't reach, so the whole body is replaced.
+ *
+ * Instances are immutable and can be shared between threads.
+ */
+final class JsonBodyMasker {
+    private static final int MAX_DEPTH = 256;
+
+    private static final int SEGMENT_KEY = 0;
+    private static final int SEGMENT_INDEX = 1;
+    private static final int SEGMENT_ANY = 2;
+    private static final int SEGMENT_ANY_INDEX = 3;
+
+    private static final class Segment {
+        final int type;
+        final boolean descendant;
+        @Nullable
+        final String key;
+        final int index;
+
+        Segment(int type, boolean descendant, @Nullable String key, int index) {
+            this.type = type;
+            this.descendant = descendant;
+            this.key = key;
+            this.index = index;
+        }
+
+        boolean matches(@Nullable String stackKey, int stackIndex) {
+            switch (type) {
+                case SEGMENT_KEY:
+                    return key.equals(stackKey);
+                case SEGMENT_INDEX:
+                    return stackKey == null && index == stackIndex;
+                case SEGMENT_ANY_INDEX:
+                    return stackKey == null;
+                default:
+                    return true;
+            }
+        }
+    }
+
+    private static final class MalformedJsonException extends Exception {
+        private static final long serialVersionUID = 1L;
+    }
+
+    private final Segment[][] paths;
+    private final String replacement;
+    private final String replacementJson;
+
+    private JsonBodyMasker(Segment[][] paths, String replacement) {
+        this.paths = paths;
+        this.replacement = replacement;
+        this.replacementJson = quote(replacement);
+    }
+
+    /**
+     * @throws IllegalArgumentException if any of the paths can't be parsed
+     */
+    @Nullable
+    public static JsonBodyMasker create(@Nullable List<String> paths, String replacement) {
+        if (paths == null || paths.isEmpty()) {
+            return null;
+        }
+
+        Segment[][] compiledPaths = new Segment[paths.size()][];
+        for (int i = 0; i < compiledPaths.length; i++) {
+            compiledPaths[i] = parsePath(paths.get(i));
+        }
+        return new JsonBodyMasker(compiledPaths, replacement);
+    }
+
+    /**
+     * Returns the body with the selected values replaced. Bodies which can't
+     * be scanned completely are replaced as a whole, empty ones are returned
+     * unchanged.
+     */
+    public String mask(String body) {
+        Scanner scanner = new Scanner(body);
+        try {
+            scanner.skipWhitespace();
+            if (scanner.position >= body.length()) {
+                return body;
+            }
+
+            char c = body.charAt(scanner.position);
+            if (c != '{' && c != '[') {
+                return replacement;
+            }
+
+            scanner.scanValue();
+            scanner.skipWhitespace();
+            if (scanner.position < body.length()) {
+                // trailing data after the document
+                return replacement;
+            }
+        } catch (MalformedJsonException | IndexOutOfBoundsException e) {
+            // truncated bodies end up here as well, as scanner runs out of input
+            return replacement;
+        }
+        return scanner.getResult();
+    }
+
+    // ----------------------------------------------------------------------------------
+    // Scanning
+
+    private final class Scanner {
+        final String body;
+        int position = 0;
+        int depth = 0;
+        String[] stackKeys = new String[8];
+        int[] stackIndices = new int[8];
+        @Nullable
+        StringBuilder output;
+        int copiedUpTo = 0;
+
+        Scanner(String body) {
+            this.body = body;
+        }
+
+        String getResult() {
+            if (output == null) {
+                return body;
+            }
+            output.append(body, copiedUpTo, body.length());
+            return output.toString();
+        }
+
+        void scanValue() throws MalformedJsonException {
+            skipWhitespace();
+
+            if (depth > 0 && isSelected()) {
+                int start = position;
+                skipValue();
+                if (output == null) {
+                    output = new StringBuilder(body.length());
+                }
+                output.append(body, copiedUpTo, start).append(replacementJson);
+                copiedUpTo = position;
+                return;
+            }
+
+            char c = body.charAt(position);
+            if (c == '{') {
+                scanObject();
+            } else if (c == '[') {
+                scanArray();
+            } else {
+                skipValue();
+            }
+        }
+
+        private void scanObject() throws MalformedJsonException {
+            position++;
+            push();
+            skipWhitespace();
+
+            if (body.charAt(position) == '}') {
+                position++;
+                depth--;
+                return;
+            }
+
+            while (true) {
+                skipWhitespace();
+                stackKeys[depth - 1] = readString();
+                skipWhitespace();
+                expect(':');
+                scanValue();
+                skipWhitespace();
+
+                char c = body.charAt(position++);
+                if (c == '}') {
+                    break;
+                } else if (c != ',') {
+                    throw new MalformedJsonException();
+                }
+            }
+
+            depth--;
+        }
+
+        private void scanArray() throws MalformedJsonException {
+            position++;
+            push();
+            skipWhitespace();
+
+            if (body.charAt(position) == ']') {
+                position++;
+                depth--;
+                return;
+            }
+
+            for (int index = 0; ; index++) {
+                stackIndices[depth - 1] = index;
+                scanValue();
+                skipWhitespace();
+
+                char c = body.charAt(position++);
+                if (c == ']') {
+                    break;
+                } else if (c != ',') {
+                    throw new MalformedJsonException();
+                }
+            }
+
+            depth--;
+        }
+
+        private void push() throws MalformedJsonException {
+            if (depth == MAX_DEPTH) {
+                throw new MalformedJsonException();
+            }
+
+            if (depth == stackKeys.length) {
+                stackKeys = Arrays.copyOf(stackKeys, depth * 2);
+                stackIndices = Arrays.copyOf(stackIndices, depth * 2);
+            }
+
+            // array elements are denoted by a null key
+            stackKeys[depth] = null;
+            stackIndices[depth] = -1;
+            depth++;
+        }
+
+        private void skipValue() throws MalformedJsonException {
+            char c = body.charAt(position);
+            if (c == '"') {
+                skipString();
+            } else if (c == '{' || c == '[') {
+                // skip nested structure by tracking brackets only
+                int nesting = 0;
+                do {
+                    c = body.charAt(position);
+                    if (c == '"') {
+                        skipString();
+                        continue;
+                    }
+                    if (c == '{' || c == '[') {
+                        nesting++;
+                    } else if (c == '}' || c == ']') {
+                        nesting--;
+                    }
+                    position++;
+                } while (nesting > 0);
+            } else {
+                int start = position;
+                while (position < body.length() && ",}] \t\r\n".indexOf(body.charAt(position)) < 0) {
+                    position++;
+                }
+                if (!isLiteral(start, position)) {
+                    throw new MalformedJsonException();
+                }
+            }
+        }
+
+        private void skipString() throws MalformedJsonException {
+            expect('"');
+            while (true) {
+                char c = body.charAt(position++);
+                if (c == '\\') {
+                    position++;
+                } else if (c == '"') {
+                    return;
+                }
+            }
+        }
+
+        private boolean isLiteral(int start, int end) {
+            if (start == end) {
+                return false;
+            }
+
+            char c = body.charAt(start);
+            if (c == '-' || (c >= '0' && c <= '9')) {
+                return true;
+            }
+
+            // literal may be cut off by the truncation, so compare it fully
+            return body.startsWith("true", start) && end - start == 4
+                    || body.startsWith("false", start) && end - start == 5
+                    || body.startsWith("null", start) && end - start == 4;
+        }
+
+        private String readString() throws MalformedJsonException {
+            int start = position + 1;
+            skipString();
+            String raw = body.substring(start, position - 1);
+            return (raw.indexOf('\\') < 0) ? raw : unescape(raw);
+        }
+
+        private void expect(char expected) throws MalformedJsonException {
+            if (body.charAt(position) != expected) {
+                throw new MalformedJsonException();
+            }
+            position++;
+        }
+
+        void skipWhitespace() {
+            while (position < body.length()) {
+                char c = body.charAt(position);
+                if (c != ' ' && c != '\t' && c != '\r' && c != '\n') {
+                    return;
+                }
+                position++;
+            }
+        }
+
+        private boolean isSelected() {
+            for (Segment[] path : paths) {
+                if (matches(path, 0, 0)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private boolean matches(Segment[] path, int segmentIndex, int stackIndex) {
+            if (segmentIndex == path.length) {
+                return stackIndex == depth;
+            }
+
+            Segment segment = path[segmentIndex];
+            if (segment.descendant) {
+                for (int i = stackIndex; i < depth; i++) {
+                    if (segment.matches(stackKeys[i], stackIndices[i]) && matches(path, segmentIndex + 1, i + 1)) {
+                        return true;
+                    }
+                }
+                return false;
+            }
+
+            return stackIndex < depth
+                    && segment.matches(stackKeys[stackIndex], stackIndices[stackIndex])
+                    && matches(path, segmentIndex + 1, stackIndex + 1);
+        }
+    }
+
+    // ----------------------------------------------------------------------------------
+    // Helpers
+
+    private static Segment[] parsePath(String path) {
+        ArrayList<Segment> segments = new ArrayList<>();
+        int position;
+
+        if (path.startsWith("$")) {
+            position = 1;
+        } else {
+            path = "$.." + path;
+            position = 1;
+        }
+
+        while (position < path.length()) {
+            char c = path.charAt(position);
+            if (c == '.') {
+                boolean descendant = path.startsWith("..", position);
+                position += descendant ? 2 : 1;
+
+                int end = position;
+                while (end < path.length() && path.charAt(end) != '.' && path.charAt(end) != '[') {
+                    end++;
+                }
+
+                String name = path.substring(position, end);
+                if (name.isEmpty()) {
+                    throw new IllegalArgumentException("Invalid JSON path: " + path);
+                }
+
+                segments.add(name.equals("*") ? new Segment(SEGMENT_ANY, descendant, null, 0)
+                        : new Segment(SEGMENT_KEY, descendant, name, 0));
+                position = end;
+            } else if (c == '[') {
+                int end = path.indexOf(']', position);
+                if (end < 0) {
+                    throw new IllegalArgumentException("Invalid JSON path: " + path);
+                }
+
+                String selector = path.substring(position + 1, end).trim();
+                if (selector.equals("*")) {
+                    segments.add(new Segment(SEGMENT_ANY_INDEX, false, null, 0));
+                } else if (selector.length() >= 2 && (selector.charAt(0) == '\'' || selector.charAt(0) == '"')) {
+                    segments.add(new Segment(SEGMENT_KEY, false, selector.substring(1, selector.length() - 1), 0));
+                } else {
+                    try {
+                        segments.add(new Segment(SEGMENT_INDEX, false, null, Integer.parseInt(selector)));
+                    } catch (NumberFormatException e) {
+                        throw new IllegalArgumentException("Invalid JSON path: " + path);
+                    }
+                }
+                position = end + 1;
+            } else {
+                throw new IllegalArgumentException("Invalid JSON path: " + path);
+            }
+        }
+
+        return segments.toArray(new Segment[0]);
+    }
+
+    private static String unescape(String raw) throws MalformedJsonException {
+        StringBuilder builder = new StringBuilder(raw.length());
+        for (int i = 0; i < raw.length(); i++) {
+            char c = raw.charAt(i);
+            if (c != '\\') {
+                builder.append(c);
+                continue;
+            }
+
+            char escaped = raw.charAt(++i);
+            switch (escaped) {
+                case 'b':
+                    builder.append('\b');
+                    break;
+                case 'f':
+                    builder.append('\f');
+                    break;
+                case 'n':
+                    builder.append('\n');
+                    break;
+                case 'r':
+                    builder.append('\r');
+                    break;
+                case 't':
+                    builder.append('\t');
+                    break;
+                case 'u':
+                    // key with the broken escape can't be matched reliably
+                    if (i + 4 >= raw.length()) {
+                        throw new MalformedJsonException();
+                    }
+                    try {
+                        builder.append((char) Integer.parseInt(raw.substring(i + 1, i + 5), 16));
+                    } catch (NumberFormatException e) {
+                        throw new MalformedJsonException();
+                    }
+                    i += 4;
+                    break;
+                case '"':
+                case '\\':
+                case '/':
+                    builder.append(escaped);
+                    break;
+                default:
+                    throw new MalformedJsonException();
+            }
+        }
+        return builder.toString();
+    }
+
+    private static String quote(String value) {
+        StringBuilder builder = new StringBuilder(value.length() + 2).append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"' || c == '\\') {
+                builder.append('\\').append(c);
+            } else if (c < 0x20) {
+                builder.append(String.format("\\u%04x", (int) c));
+            } else {
+                builder.append(c);
+            }
+        }
+        return builder.append('"').toString();
+    }
+}
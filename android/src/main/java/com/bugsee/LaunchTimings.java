@@ -0,0 +1,48 @@
+package com.bugsee;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+
+/**
+ * Phase by phase breakdown of a single launch. Phases may be recorded on
+ * different threads, durations are kept in microseconds.
+ */
+final class LaunchTimings {
+    public static final String PHASE_OPTION_PARSING = "optionParsing";
+    public static final String PHASE_QUEUE_WAIT = "queueWait";
+    public static final String PHASE_SDK_INIT = "sdkInit";
+    // time up to the next vsync after the SDK init. SDK doesn't report its
+    // first captured frame, hence this is the closest observable point
+    public static final String PHASE_NEXT_FRAME = "nextFrame";
+
+    private final long startNanos = System.nanoTime();
+    private final LinkedHashMap<String, Long> phases = new LinkedHashMap<>();
+    private long mainThreadMicros = 0;
+    private long totalMicros = 0;
+
+    /**
+     * Records the phase which lasted from the specified moment up to now
+     *
+     * @return end of the phase, which can be used as the start of the next one
+     */
+    public synchronized long record(String phase, long phaseStartNanos, boolean isOnMainThread) {
+        long now = System.nanoTime();
+        long durationMicros = (now - phaseStartNanos) / 1000;
+        phases.put(phase, durationMicros);
+        if (isOnMainThread) {
+            mainThreadMicros += durationMicros;
+        }
+        return now;
+    }
+
+    public synchronized void finish() {
+        totalMicros = (System.nanoTime() - startNanos) / 1000;
+    }
+
+    public synchronized HashMap<String, Object> snapshot() {
+        HashMap<String, Object> result = new HashMap<String, Object>(phases);
+        result.put("mainThread", mainThreadMicros);
+        result.put("total", totalMicros);
+        return result;
+    }
+}
@@ -0,0 +1,122 @@
+package com.bugsee;
+
+import com.bugsee.library.events.BugseeLogLevel;
+import com.bugsee.library.logs.BugseeLog;
+
+import java.util.Map;
+
+/**
+ * Declarative log filter, which is configured from the Flutter side once and
+ * then evaluated natively for every captured log line. Rules are applied
+ * in the following order:
+ *
+ * 1. lines which are less severe than the minimum level are dropped;
+ * 2. lines matching any of the drop patterns are dropped;
+ * 3. lines matching any of the escalate patterns are marked to be passed
+ *    to the Dart log filter (matching is done against the original text);
+ * 4. all the matches of the redact patterns are replaced;
+ * 5. text is truncated to the maximum length.
+ *
+ * Instances are immutable and can be shared between threads.
+ */
+final class LogFilterRules {
+    public static final int ACTION_DROP = 0;
+    public static final int ACTION_PASS = 1;
+    public static final int ACTION_ESCALATE = 2;
+
+    private static final String DEFAULT_REPLACEMENT = "<redacted>";
+
+    // level values grow with decreasing severity: error(1), warning(2),
+    // info(3) and so on. Zero means no limitation
+    private final int minLevel;
+    private final TextMatcher[] dropMatchers;
+    private final TextMatcher[] escalateMatchers;
+    private final TextMatcher[] redactMatchers;
+    private final String replacement;
+    private final int maxLength;
+
+    private LogFilterRules(int minLevel, TextMatcher[] dropMatchers, TextMatcher[] escalateMatchers,
+            TextMatcher[] redactMatchers, String replacement, int maxLength) {
+        this.minLevel = minLevel;
+        this.dropMatchers = dropMatchers;
+        this.escalateMatchers = escalateMatchers;
+        this.redactMatchers = redactMatchers;
+        this.replacement = replacement;
+        this.maxLength = maxLength;
+    }
+
+    /**
+     * Compiles rules from their serialized form: {minLevel, drop, escalate,
+     * redact, replacement, maxLength}, where patterns are described in
+     * {@link TextMatcher#fromMap(Map)}
+     *
+     * @throws java.util.regex.PatternSyntaxException if any of the regular
+     *         expressions is invalid
+     */
+    public static LogFilterRules fromMap(Map<String, Object> data) {
+        Object minLevel = data.get("minLevel");
+        Object maxLength = data.get("maxLength");
+        Object replacement = data.get("replacement");
+
+        return new LogFilterRules(
+                (minLevel instanceof Integer) ? (Integer) minLevel : 0,
+                TextMatcher.listFromObject(data.get("drop")),
+                TextMatcher.listFromObject(data.get("escalate")),
+                TextMatcher.listFromObject(data.get("redact")),
+                (replacement instanceof String) ? (String) replacement : DEFAULT_REPLACEMENT,
+                (maxLength instanceof Integer) ? (Integer) maxLength : 0);
+    }
+
+    /**
+     * Evaluates rules against the log line. Message of the line is updated in
+     * place when it's redacted or truncated.
+     *
+     * @return one of ACTION_DROP, ACTION_PASS or ACTION_ESCALATE
+     */
+    public int apply(BugseeLog log) {
+        BugseeLogLevel level = log.getLevel();
+        if (minLevel > 0 && level != null && level.getIntValue() > minLevel) {
+            return ACTION_DROP;
+        }
+
+        String message = log.getMessage();
+        if (message == null) {
+            return ACTION_PASS;
+        }
+
+        if (TextMatcher.anyFound(dropMatchers, message)) {
+            return ACTION_DROP;
+        }
+
+        boolean escalate = TextMatcher.anyFound(escalateMatchers, message);
+
+        String filtered = message;
+        for (TextMatcher matcher : redactMatchers) {
+            filtered = matcher.replaceAll(filtered, replacement);
+        }
+
+        filtered = truncate(filtered, maxLength);
+
+        if (filtered != message) {
+            log.setMessage(filtered);
+        }
+
+        return escalate ? ACTION_ESCALATE : ACTION_PASS;
+    }
+
+    /**
+     * Truncates text to {@code maxLength} characters (if it's positive)
+     * without splitting surrogate pairs
+     */
+    static String truncate(String text, int maxLength) {
+        if (maxLength <= 0 || text.length() <= maxLength) {
+            return text;
+        }
+
+        int end = maxLength;
+        if (Character.isHighSurrogate(text.charAt(end - 1))) {
+            end--;
+        }
+        return text.substring(0, end);
+    }
+}
@@ -0,0 +1,84 @@
+package com.bugsee;
+
+import androidx.annotation.Nullable;
+
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.util.Locale;
+
+/**
+ * Decodes network bodies which are passed from the Flutter side as raw
+ * bytes. Only textual content types are decoded, so binary bodies are never
+ * turned into strings. Bodies over the size limit of the launch options are
+ * not sent by the Flutter side at all, hence there is no budget here.
+ */
+final class NetworkBodyDecoder {
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    /**
+     * @param contentType value of the Content-Type header, body is treated
+     *                    as UTF-8 text if it's not specified
+     * @return decoded text, or null if content type is not textual
+     */
+    @Nullable
+    public String decode(byte[] data, @Nullable String contentType) {
+        String mimeType = null;
+        String charsetName = null;
+
+        if (contentType != null) {
+            String[] parts = contentType.split(";");
+            mimeType = parts[0].trim().toLowerCase(Locale.US);
+            for (int i = 1; i < parts.length; i++) {
+                String parameter = parts[i].trim();
+                if (parameter.regionMatches(true, 0, "charset=", 0, 8)) {
+                    charsetName = parameter.substring(8).replace("\"", "").trim();
+                }
+            }
+        }
+
+        if (mimeType != null && !mimeType.isEmpty() && !isTextual(mimeType)) {
+            return null;
+        }
+
+        CharsetDecoder decoder = resolveCharset(charsetName).newDecoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+
+        try {
+            // buffer wraps the original array, so bytes are not copied
+            CharBuffer text = decoder.decode(ByteBuffer.wrap(data));
+            return text.toString();
+        } catch (CharacterCodingException e) {
+            // can't happen with the REPLACE actions
+            return null;
+        }
+    }
+
+    private static Charset resolveCharset(@Nullable String charsetName) {
+        if (charsetName == null || charsetName.isEmpty()) {
+            return UTF_8;
+        }
+
+        try {
+            return Charset.forName(charsetName);
+        } catch (IllegalArgumentException e) {
+            return UTF_8;
+        }
+    }
+
+    private static boolean isTextual(String mimeType) {
+        return mimeType.startsWith("text/")
+                || mimeType.endsWith("/json")
+                || mimeType.endsWith("+json")
+                || mimeType.endsWith("/xml")
+                || mimeType.endsWith("+xml")
+                || mimeType.equals("application/x-www-form-urlencoded")
+                || mimeType.equals("application/javascript")
+                || mimeType.equals("application/x-ndjson")
+                || mimeType.equals("application/graphql");
+    }
+}
@@ -0,0 +1,81 @@
+package com.bugsee;
+
+import com.bugsee.library.exchange.ExchangeNetworkEvent;
+import com.bugsee.library.network.data.BugseeNetworkEvent;
+import com.bugsee.library.network.data.NetworkEventType;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Converts network events between the SDK types and the maps which are
+ * passed through the method channels. Kept apart from the plugin, so these
+ * hot paths can be benchmarked on a plain JVM.
+ */
+final class NetworkEventCodec {
+    private NetworkEventCodec() {
+    }
+
+    public static ExchangeNetworkEvent fromMap(Map<String, Object> eventData, NetworkBodyDecoder bodyDecoder) {
+        ExchangeNetworkEvent networkEvent = new ExchangeNetworkEvent();
+
+        networkEvent.id = getParamOrDefault(eventData, "id", "");
+        networkEvent.type = getParamOrDefault(eventData, "type", "begin");
+        networkEvent.timestamp = getParamOrDefault(eventData, "timestamp", System.currentTimeMillis());
+        networkEvent.method = getParamOrDefault(eventData, "method", "");
+        networkEvent.url = getParamOrDefault(eventData, "url", "");
+        networkEvent.size = getParamOrDefault(eventData, "size", 0);
+        networkEvent.body = getBody(eventData, bodyDecoder);
+        networkEvent.headers = getParamOrDefault(eventData, "headers", new HashMap<String, String>());
+        networkEvent.isSupplement = getParamOrDefault(eventData, "isSupplement", false);
+
+        if (eventData.containsKey("status")) {
+            networkEvent.status = getParamOrDefault(eventData, "status", 200);
+        }
+
+        networkEvent.error = getParamOrDefault(eventData, "error", null);
+
+        return networkEvent;
+    }
+
+    public static HashMap<String, Object> toMap(BugseeNetworkEvent bugseeNetworkEvent) {
+        NetworkEventType eventStage = bugseeNetworkEvent.getEventType();
+        HashMap<String, Object> serializedEvent = new HashMap<>();
+        serializedEvent.put("url", bugseeNetworkEvent.getUrl());
+        serializedEvent.put("body", bugseeNetworkEvent.getBody());
+        serializedEvent.put("method", bugseeNetworkEvent.getMethod());
+        // event stage in not a primitive, but rather an enum value
+        // hence we need to convert it to string to let it be
+        // properly passed through the codec
+        serializedEvent.put("stage", eventStage != null ? eventStage.toString() : null);
+        // serializedEvent.put("redirectedFrom", ?);
+        serializedEvent.put("headers", bugseeNetworkEvent.getHeaders());
+        return serializedEvent;
+    }
+
+    /**
+     * Body is passed either as a string, or as raw bytes along with the
+     * content type. The latter is decoded here, on the background thread.
+     * SDK reads the body field directly, hence it can't be decoded lazily.
+     */
+    private static String getBody(Map<String, Object> eventData, NetworkBodyDecoder bodyDecoder) {
+        Object bodyBytes = eventData.get("bodyBytes");
+        if (bodyBytes instanceof byte[]) {
+            String body = bodyDecoder.decode((byte[]) bodyBytes,
+                    getParamOrDefault(eventData, "contentType", (String) null));
+            return (body != null) ? body : "";
+        }
+
+        return getParamOrDefault(eventData, "body", "");
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T getParamOrDefault(Map<String, Object> params, String paramName, T defaultValue) {
+        Object value = params.get(paramName);
+        if (value == null) {
+            return defaultValue;
+        }
+
+        return (T) value;
+    }
+}
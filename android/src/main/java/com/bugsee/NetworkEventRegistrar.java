@@ -0,0 +1,53 @@
+package com.bugsee;
+
+import androidx.annotation.Nullable;
+
+import com.bugsee.library.exchange.ExchangeNetworkEvent;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Passes network events registered on the Flutter side to the SDK, either
+ * one by one or in batches, and counts the events which Dart dropped
+ * before they were sent. Methods can be called from any thread.
+ */
+final class NetworkEventRegistrar {
+    private final BugseeSdk sdk;
+    private final NetworkBodyDecoder bodyDecoder;
+    private final AtomicLong droppedEvents = new AtomicLong();
+
+    NetworkEventRegistrar(BugseeSdk sdk, NetworkBodyDecoder bodyDecoder) {
+        this.sdk = sdk;
+        this.bodyDecoder = bodyDecoder;
+    }
+
+    public ExchangeNetworkEvent register(Map<String, Object> eventData) {
+        ExchangeNetworkEvent event = NetworkEventCodec.fromMap(eventData, bodyDecoder);
+        sdk.addNetworkEvent(event);
+        return event;
+    }
+
+    /**
+     * Registers the batch of events in its original order
+     */
+    public void registerAll(@Nullable List<Map<String, Object>> events) {
+        if (events != null) {
+            for (Map<String, Object> eventData : events) {
+                register(eventData);
+            }
+        }
+    }
+
+    /**
+     * @return number of the events dropped in total
+     */
+    public long addDropped(int count) {
+        return droppedEvents.addAndGet(count);
+    }
+
+    public long getDropped() {
+        return droppedEvents.get();
+    }
+}
@@ -0,0 +1,228 @@
+package com.bugsee;
+
+import androidx.annotation.Nullable;
+
+import com.bugsee.library.network.data.BugseeNetworkEvent;
+
+import java.io.UnsupportedEncodingException;
+import java.net.URLDecoder;
+import java.net.URLEncoder;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Declarative network event redaction, which is configured from the Flutter
+ * side once and then evaluated natively for every captured network event:
+ *
+ * 1. values of the headers with matching names are replaced;
+ * 2. values of the URL query parameters with matching names are replaced;
+ * 3. values of JSON bodies selected by the paths are replaced, JSON bodies
+ *    which can't be scanned completely are replaced as a whole (see
+ *    {@link JsonBodyMasker}). Body is considered JSON when Content-Type
+ *    says so or it starts with '{' or '[', other bodies are left as is;
+ * 4. body is truncated to the maximum length.
+ *
+ * Header and parameter names must match the patterns fully. Events with URLs
+ * matching any of the escalate patterns are marked to be passed to the Dart
+ * network filter after the redaction.
+ *
+ * Instances are immutable and can be shared between threads.
+ */
+final class NetworkRedactionRules {
+    private static final String DEFAULT_REPLACEMENT = "<redacted>";
+
+    private final TextMatcher[] headerMatchers;
+    private final TextMatcher[] queryParameterMatchers;
+    @Nullable
+    private final JsonBodyMasker bodyMasker;
+    private final TextMatcher[] escalateMatchers;
+    private final String replacement;
+    private final String encodedReplacement;
+    private final int maxBodyLength;
+
+    private NetworkRedactionRules(TextMatcher[] headerMatchers, TextMatcher[] queryParameterMatchers,
+            @Nullable JsonBodyMasker bodyMasker, TextMatcher[] escalateMatchers, String replacement,
+            int maxBodyLength) {
+        this.headerMatchers = headerMatchers;
+        this.queryParameterMatchers = queryParameterMatchers;
+        this.bodyMasker = bodyMasker;
+        this.escalateMatchers = escalateMatchers;
+        this.replacement = replacement;
+        this.encodedReplacement = encode(replacement);
+        this.maxBodyLength = maxBodyLength;
+    }
+
+    /**
+     * Compiles rules from their serialized form: {headers, queryParameters,
+     * bodyPaths, escalate, replacement, maxBodyLength}, where patterns are
+     * described in {@link TextMatcher#fromMap(Map)}
+     *
+     * @throws IllegalArgumentException if any of the patterns or paths is invalid
+     */
+    @SuppressWarnings("unchecked")
+    public static NetworkRedactionRules fromMap(Map<String, Object> data) {
+        Object replacement = data.get("replacement");
+        Object maxBodyLength = data.get("maxBodyLength");
+        Object bodyPaths = data.get("bodyPaths");
+        String finalReplacement = (replacement instanceof String) ? (String) replacement : DEFAULT_REPLACEMENT;
+
+        return new NetworkRedactionRules(
+                TextMatcher.listFromObject(data.get("headers")),
+                TextMatcher.listFromObject(data.get("queryParameters")),
+                JsonBodyMasker.create((bodyPaths instanceof List) ? (List<String>) bodyPaths : null,
+                        finalReplacement),
+                TextMatcher.listFromObject(data.get("escalate")),
+                finalReplacement,
+                (maxBodyLength instanceof Integer) ? (Integer) maxBodyLength : 0);
+    }
+
+    /**
+     * Redacts the event in place
+     *
+     * @return true if event should be passed to the Dart network filter
+     */
+    public boolean apply(BugseeNetworkEvent event) {
+        String url = event.getUrl();
+        boolean escalate = (url != null) && TextMatcher.anyFound(escalateMatchers, url);
+
+        if (url != null && queryParameterMatchers.length > 0) {
+            String redactedUrl = redactUrl(url);
+            if (redactedUrl != url) {
+                event.setUrl(redactedUrl);
+            }
+        }
+
+        Map<String, Object> headers = event.getHeaders();
+        if (headers != null && headerMatchers.length > 0) {
+            Map<String, Object> redactedHeaders = redactHeaders(headers);
+            if (redactedHeaders != headers) {
+                event.setHeaders(redactedHeaders);
+            }
+        }
+
+        String body = event.getBody();
+        if (body != null) {
+            // body must be masked before truncation, as truncated JSON
+            // can't be parsed anymore
+            String redactedBody = (bodyMasker != null && isJson(headers, body)) ? bodyMasker.mask(body) : body;
+            redactedBody = LogFilterRules.truncate(redactedBody, maxBodyLength);
+            if (redactedBody != body) {
+                event.setBody(redactedBody);
+            }
+        }
+
+        return escalate;
+    }
+
+    /**
+     * @param headers original headers, as Content-Type may be redacted
+     */
+    private static boolean isJson(@Nullable Map<String, Object> headers, String body) {
+        if (headers != null) {
+            for (Map.Entry<String, Object> entry : headers.entrySet()) {
+                if ("content-type".equalsIgnoreCase(entry.getKey()) && entry.getValue() != null
+                        && String.valueOf(entry.getValue()).toLowerCase(Locale.ROOT).contains("json")) {
+                    return true;
+                }
+            }
+        }
+
+        for (int i = 0; i < body.length(); i++) {
+            char c = body.charAt(i);
+            if (!Character.isWhitespace(c)) {
+                return c == '{' || c == '[';
+            }
+        }
+
+        return false;
+    }
+
+    private Map<String, Object> redactHeaders(Map<String, Object> headers) {
+        HashMap<String, Object> redactedHeaders = null;
+
+        for (Map.Entry<String, Object> entry : headers.entrySet()) {
+            String name = entry.getKey();
+            if (name != null && anyMatchesFully(headerMatchers, name)) {
+                if (redactedHeaders == null) {
+                    // original map may be immutable or shared, hence copy it
+                    redactedHeaders = new HashMap<>(headers);
+                }
+                redactedHeaders.put(name, replacement);
+            }
+        }
+
+        return (redactedHeaders != null) ? redactedHeaders : headers;
+    }
+
+    private String redactUrl(String url) {
+        int queryStart = url.indexOf('?');
+        if (queryStart < 0) {
+            return url;
+        }
+
+        int queryEnd = url.indexOf('#', queryStart);
+        if (queryEnd < 0) {
+            queryEnd = url.length();
+        }
+
+        StringBuilder builder = null;
+        int copiedUpTo = 0;
+        int position = queryStart + 1;
+
+        while (position < queryEnd) {
+            int parameterEnd = url.indexOf('&', position);
+            if (parameterEnd < 0 || parameterEnd > queryEnd) {
+                parameterEnd = queryEnd;
+            }
+
+            int separator = url.indexOf('=', position);
+            if (separator >= 0 && separator < parameterEnd
+                    && anyMatchesFully(queryParameterMatchers, decode(url.substring(position, separator)))) {
+                if (builder == null) {
+                    builder = new StringBuilder(url.length());
+                }
+                builder.append(url, copiedUpTo, separator + 1).append(encodedReplacement);
+                copiedUpTo = parameterEnd;
+            }
+
+            position = parameterEnd + 1;
+        }
+
+        if (builder == null) {
+            return url;
+        }
+
+        return builder.append(url, copiedUpTo, url.length()).toString();
+    }
+
+    private static boolean anyMatchesFully(TextMatcher[] matchers, String text) {
+        for (TextMatcher matcher : matchers) {
+            if (matcher.matchesFully(text)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String decode(String value) {
+        if (value.indexOf('%') < 0 && value.indexOf('+') < 0) {
+            return value;
+        }
+
+        try {
+            return URLDecoder.decode(value, "UTF-8");
+        } catch (UnsupportedEncodingException | IllegalArgumentException e) {
+            return value;
+        }
+    }
+
+    private static String encode(String value) {
+        try {
+            return URLEncoder.encode(value, "UTF-8");
+        } catch (UnsupportedEncodingException e) {
+            return value;
+        }
+    }
+}
@@ -0,0 +1,371 @@
+package com.bugsee;
+
+import androidx.annotation.Nullable;
+import androidx.annotation.UiThread;
+
+import com.bugsee.library.events.BugseeLogLevel;
+import com.bugsee.library.logs.BugseeLog;
+import com.bugsee.library.logs.LogFilter;
+import com.bugsee.library.logs.LogListener;
+import com.bugsee.library.network.NetworkEventFilter;
+import com.bugsee.library.network.NetworkEventListener;
+import com.bugsee.library.network.data.BugseeNetworkEvent;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import io.flutter.plugin.common.MethodChannel.Result;
+
+/**
+ * Network and log filters installed into the SDK. Captured items are first
+ * handled by the native rules (see {@link NetworkRedactionRules} and
+ * {@link LogFilterRules}), and the escalated ones are passed to the Dart
+ * callbacks in batches (see {@link FilterDispatcher}), bounded by the
+ * callback windows.
+ *
+ * Filters are invoked on the SDK threads, installation and configuration
+ * are expected on the UI thread.
+ */
+final class SdkFilterHooks {
+    private static final String TAG = "BugseeFlutterBridge";
+
+    // bits of the Dart callbacks, see Host#isCallbackActive()
+    public static final int CALLBACK_NETWORK_EVENT = 1;
+    public static final int CALLBACK_LOG_EVENT = 1 << 1;
+
+    interface Host {
+        /**
+         * @return whether the Dart callback is set. Called on the SDK threads
+         */
+        boolean isCallbackActive(int callbackBit);
+
+        /**
+         * Invokes the Dart method on the main channel. Called on the UI thread
+         *
+         * @return false if there is no channel to invoke the method on
+         */
+        boolean invokeCallback(String method, Object arguments, Result callback);
+    }
+
+    private final BugseeSdk sdk;
+    private final Host host;
+    // filters wait for the reply indefinitely unless limits are set from
+    // Dart, so nothing is dropped behind the user's back by default
+    private final CallbackWindow networkWindow = new CallbackWindow(0, 0, CallbackWindow.POLICY_PASS_THROUGH);
+    private final CallbackWindow logWindow = new CallbackWindow(0, 0, CallbackWindow.POLICY_PASS_THROUGH);
+    private final FilterDispatcher<PendingNetworkFilter> networkFilters;
+    private final FilterDispatcher<PendingLogFilter> logFilters;
+    @Nullable
+    private volatile NetworkRedactionRules networkRedactionRules;
+    @Nullable
+    private volatile LogFilterRules logFilterRules;
+    // filters are installed lazily, UI thread only
+    private boolean networkFilterInstalled = false;
+    private boolean logFilterInstalled = false;
+
+    SdkFilterHooks(BugseeSdk sdk, UiScheduler scheduler, Host host) {
+        this.sdk = sdk;
+        this.host = host;
+
+        networkFilters = new FilterDispatcher<>(networkWindow, scheduler,
+                new FilterDispatcher.Handler<PendingNetworkFilter>() {
+                    @Override
+                    public void send(List<PendingNetworkFilter> filters, FilterBatch<PendingNetworkFilter> batch) {
+                        ArrayList<Object> serializedEvents = new ArrayList<>(filters.size());
+                        for (PendingNetworkFilter filter : filters) {
+                            serializedEvents.add(NetworkEventCodec.toMap(filter.event));
+                        }
+
+                        sendToDart("onNetworkEvents", serializedEvents, batch);
+                    }
+
+                    @Override
+                    public void applyReply(List<PendingNetworkFilter> filters, @Nullable Object reply) {
+                        // results come in the same order as events, null
+                        // denotes the event which must be skipped
+                        List<Object> results = (reply instanceof List) ? (List<Object>) reply : null;
+                        for (int i = 0; i < filters.size(); i++) {
+                            Object itemResult = (results != null && i < results.size()) ? results.get(i) : null;
+                            applyNetworkFilterResult(filters.get(i), itemResult);
+                        }
+                    }
+
+                    @Override
+                    public void applyOverflowPolicy(PendingNetworkFilter filter, int policy) {
+                        handleNetworkFilterOverflow(filter, policy);
+                    }
+                });
+
+        logFilters = new FilterDispatcher<>(logWindow, scheduler,
+                new FilterDispatcher.Handler<PendingLogFilter>() {
+                    @Override
+                    public void send(List<PendingLogFilter> filters, FilterBatch<PendingLogFilter> batch) {
+                        ArrayList<Object> serializedLogs = new ArrayList<>(filters.size());
+                        for (PendingLogFilter filter : filters) {
+                            ArrayList<Object> serializedLog = new ArrayList<>(2);
+                            serializedLog.add(filter.log.getMessage());
+                            serializedLog.add(filter.log.getLevel().getIntValue());
+                            serializedLogs.add(serializedLog);
+                        }
+
+                        sendToDart("onLogEvents", serializedLogs, batch);
+                    }
+
+                    @Override
+                    public void applyReply(List<PendingLogFilter> filters, @Nullable Object reply) {
+                        // results come in the same order as log lines, null
+                        // denotes the line which must be skipped
+                        List<Object> results = (reply instanceof List) ? (List<Object>) reply : null;
+                        for (int i = 0; i < filters.size(); i++) {
+                            Object itemResult = (results != null && i < results.size()) ? results.get(i) : null;
+                            applyConsoleFilterResult(filters.get(i), itemResult);
+                        }
+                    }
+
+                    @Override
+                    public void applyOverflowPolicy(PendingLogFilter filter, int policy) {
+                        handleConsoleFilterOverflow(filter, policy);
+                    }
+                });
+    }
+
+    public CallbackWindow getNetworkWindow() {
+        return networkWindow;
+    }
+
+    public CallbackWindow getLogWindow() {
+        return logWindow;
+    }
+
+    /**
+     * Null rules disable the redaction, otherwise the filter is installed
+     */
+    @UiThread
+    public void setNetworkRedactionRules(@Nullable NetworkRedactionRules rules) {
+        networkRedactionRules = rules;
+        if (rules != null) {
+            installNetworkFilter();
+        }
+    }
+
+    /**
+     * Null rules disable the filtering, otherwise the filter is installed
+     */
+    @UiThread
+    public void setLogFilterRules(@Nullable LogFilterRules rules) {
+        logFilterRules = rules;
+        if (rules != null) {
+            installLogFilter();
+        }
+    }
+
+    /**
+     * Network filter is installed only once there is something to filter,
+     * i.e. Dart callback or redaction rules are set. It's never removed,
+     * as it passes events through when neither of them is active
+     */
+    @UiThread
+    public void installNetworkFilter() {
+        if (networkFilterInstalled) {
+            return;
+        }
+        networkFilterInstalled = true;
+
+        sdk.setNetworkEventFilter(new NetworkEventFilter() {
+            @Override
+            public void filter(BugseeNetworkEvent bugseeNetworkEvent, NetworkEventListener networkEventListener) {
+                PendingNetworkFilter filter = new PendingNetworkFilter(bugseeNetworkEvent, networkEventListener);
+
+                // redaction is done right here, so bodies cross the
+                // channel only for the escalated events
+                NetworkRedactionRules rules = networkRedactionRules;
+                if (rules != null && !rules.apply(bugseeNetworkEvent)) {
+                    filter.pass();
+                    return;
+                }
+
+                escalate(filter, CALLBACK_NETWORK_EVENT, networkFilters);
+            }
+        });
+    }
+
+    /**
+     * Log filter is installed only once there is something to filter, i.e.
+     * Dart callback or filter rules are set. It's never removed, as it
+     * passes log lines through when neither of them is active
+     */
+    @UiThread
+    public void installLogFilter() {
+        if (logFilterInstalled) {
+            return;
+        }
+        logFilterInstalled = true;
+
+        sdk.setLogFilter(new LogFilter() {
+            @Override
+            public void filter(BugseeLog bugseeLog, LogListener logListener) {
+                PendingLogFilter filter = new PendingLogFilter(bugseeLog, logListener);
+
+                // rules are evaluated right here, on the thread where the
+                // log was captured. Only escalated lines go to Dart
+                LogFilterRules rules = logFilterRules;
+                int action = (rules != null) ? rules.apply(bugseeLog) : LogFilterRules.ACTION_ESCALATE;
+                if (action == LogFilterRules.ACTION_DROP) {
+                    logListener.onLog(null);
+                    return;
+                }
+                if (action == LogFilterRules.ACTION_PASS) {
+                    filter.pass();
+                    return;
+                }
+
+                escalate(filter, CALLBACK_LOG_EVENT, logFilters);
+            }
+        });
+    }
+
+    /**
+     * Passes the item to the Dart filter if its callback is set, otherwise
+     * hands the item back to the SDK as is. Called on the thread where the
+     * item was captured
+     */
+    private <T extends PendingFilter> void escalate(T filter, int callbackBit, FilterDispatcher<T> dispatcher) {
+        if (host.isCallbackActive(callbackBit)) {
+            dispatcher.offer(filter);
+        } else {
+            filter.pass();
+        }
+    }
+
+    @UiThread
+    private void sendToDart(String method, Object arguments, Result batch) {
+        if (!host.invokeCallback(method, arguments, batch)) {
+            // filter can't be applied, hence do not log anything to
+            // prevent possible data leakage/disclosure
+            batch.error("NO_CHANNEL", null, null);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private void applyNetworkFilterResult(PendingNetworkFilter filter, @Nullable Object result) {
+        if (result instanceof Map) {
+            try {
+                Map<String, Object> resultData = (Map<String, Object>) result;
+                filter.event.setBody((String) resultData.get("body"));
+                filter.event.setUrl((String) resultData.get("url"));
+                filter.event.setHeaders((Map<String, Object>) resultData.get("headers"));
+                filter.listener.onEvent(filter.event);
+                return;
+            } catch (Exception e) {
+                sdk.logWarning(TAG,
+                        "Failed to handle network event filtering result. Error: " + e.toString(), false);
+            }
+        }
+
+        filter.listener.onEvent(null);
+    }
+
+    private static void handleNetworkFilterOverflow(PendingNetworkFilter filter, int policy) {
+        BugseeNetworkEvent event = filter.event;
+        switch (policy) {
+            case CallbackWindow.POLICY_PASS_THROUGH:
+                filter.pass();
+                break;
+            case CallbackWindow.POLICY_REDACT_ALL:
+                // keep only the fact of the request, without any of its data
+                String url = event.getUrl();
+                int queryStart = (url != null) ? url.indexOf('?') : -1;
+                if (queryStart >= 0) {
+                    event.setUrl(url.substring(0, queryStart));
+                }
+                event.setBody(null);
+                event.setHeaders(new HashMap<String, Object>());
+                filter.pass();
+                break;
+            default:
+                filter.listener.onEvent(null);
+                break;
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private void applyConsoleFilterResult(PendingLogFilter filter, @Nullable Object result) {
+        if (result instanceof List) {
+            try {
+                List<Object> resultArray = (List<Object>) result;
+                filter.log.setMessage((String) resultArray.get(0));
+                filter.log.setLevel(BugseeLogLevel.fromIntValue((int) resultArray.get(1)));
+                filter.listener.onLog(filter.log);
+                return;
+            } catch (Exception e) {
+                sdk.logWarning(TAG,
+                        "Failed to handle console event filtering result. Error: " + e.toString(), false);
+            }
+        }
+
+        filter.listener.onLog(null);
+    }
+
+    private static void handleConsoleFilterOverflow(PendingLogFilter filter, int policy) {
+        switch (policy) {
+            case CallbackWindow.POLICY_PASS_THROUGH:
+                filter.pass();
+                break;
+            case CallbackWindow.POLICY_REDACT_ALL:
+                filter.log.setMessage("<redacted>");
+                filter.pass();
+                break;
+            default:
+                filter.listener.onLog(null);
+                break;
+        }
+    }
+
+    /**
+     * Item captured by the SDK along with the listener which takes it back
+     */
+    private abstract static class PendingFilter {
+        /**
+         * Hands the item back to the SDK as is
+         */
+        abstract void pass();
+    }
+
+    /**
+     * Network event waiting to be passed to the Dart network filter
+     */
+    private static final class PendingNetworkFilter extends PendingFilter {
+        final BugseeNetworkEvent event;
+        final NetworkEventListener listener;
+
+        PendingNetworkFilter(BugseeNetworkEvent event, NetworkEventListener listener) {
+            this.event = event;
+            this.listener = listener;
+        }
+
+        @Override
+        void pass() {
+            listener.onEvent(event);
+        }
+    }
+
+    /**
+     * Log line waiting to be passed to the Dart log filter
+     */
+    private static final class PendingLogFilter extends PendingFilter {
+        final BugseeLog log;
+        final LogListener listener;
+
+        PendingLogFilter(BugseeLog log, LogListener listener) {
+            this.log = log;
+            this.listener = listener;
+        }
+
+        @Override
+        void pass() {
+            listener.onLog(log);
+        }
+    }
+}
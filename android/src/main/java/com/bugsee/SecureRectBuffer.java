@@ -0,0 +1,95 @@
+package com.bugsee;
+
+import android.graphics.Rect;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Produces lists of {@link Rect} instances which are handed over to the
+ * underlying SDK. SDK may keep the list and read it on its own thread, hence
+ * every list (and every rectangle in it) is created anew and never modified
+ * once it's handed out.
+ *
+ * Buffer also remembers the last filled rectangles in a reusable primitive
+ * array, which allows to detect updates that do not change the resulting
+ * geometry without allocating anything.
+ */
+final class SecureRectBuffer {
+    private int[] lastBounds = new int[0];
+    private int lastCount = -1;
+    private long lastFingerprint = 0;
+
+    /**
+     * Creates the new list with rectangles stored in <left, top, right, bottom>
+     * layout and remembers them as the last filled ones.
+     */
+    public List<Rect> fill(int[] bounds, int count) {
+        int length = count * 4;
+        if (lastBounds.length < length) {
+            lastBounds = new int[Math.max(length, lastBounds.length * 2)];
+        }
+        System.arraycopy(bounds, 0, lastBounds, 0, length);
+        lastCount = count;
+        lastFingerprint = fingerprint(bounds, count);
+
+        ArrayList<Rect> list = new ArrayList<Rect>(count);
+        for (int i = 0; i < count; i++) {
+            int offset = i * 4;
+            list.add(new Rect(bounds[offset], bounds[offset + 1], bounds[offset + 2], bounds[offset + 3]));
+        }
+
+        return list;
+    }
+
+    /**
+     * Checks whether specified rectangles are the same as the last filled
+     * ones. Fingerprint is used as a quick check and matching rectangles are
+     * then compared exactly, so collisions can't hide an update.
+     */
+    public boolean matchesLast(int[] bounds, int count) {
+        if (count != lastCount || fingerprint(bounds, count) != lastFingerprint) {
+            return false;
+        }
+
+        for (int i = 0; i < count * 4; i++) {
+            if (lastBounds[i] != bounds[i]) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Forgets the last filled rectangles. Used when rectangles were passed
+     * to the SDK bypassing this buffer, or the list was cleared there.
+     */
+    public void invalidate() {
+        lastCount = -1;
+    }
+
+    /**
+     * Converts rectangles reported by the SDK into the list of
+     * [x, y, width, height] items expected on the Dart side
+     */
+    public static ArrayList<List<Double>> toDartRects(List<Rect> rectangles) {
+        ArrayList<List<Double>> result = new ArrayList<List<Double>>(rectangles.size());
+
+        for (Rect rect : rectangles) {
+            result.add(Arrays.asList((double) rect.left, (double) rect.top, (double) rect.width(),
+                    (double) rect.height()));
+        }
+
+        return result;
+    }
+
+    private static long fingerprint(int[] bounds, int count) {
+        long hash = count;
+        for (int i = 0; i < count * 4; i++) {
+            hash = (hash ^ bounds[i]) * 0x100000001B3L;
+        }
+        return hash;
+    }
+}
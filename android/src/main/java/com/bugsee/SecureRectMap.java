@@ -0,0 +1,313 @@
+package com.bugsee;
+
+import java.nio.IntBuffer;
+import java.util.Arrays;
+
+/**
+ * Int-keyed storage for the secure rectangles reported by the Flutter side.
+ *
+ * Entries are kept in dense primitive arrays and indexed by an open-addressing
+ * (linear probing) hash table, so ids are never boxed. Each entry holds two
+ * rectangles in <left, top, right, bottom> form:
+ *
+ * state rect:
+ * position from the previous update. New data is always checked against it
+ *
+ * actual rect:
+ * current bounds of the area to obscure, which is expanded while the
+ * target area moves
+ *
+ * Map is updated either with the full snapshot of rectangles, or with the
+ * delta which carries only the changed ones.
+ *
+ * All the buffers are reused between updates and only grow, hence once the
+ * number of rectangles stabilizes, updates do not allocate anything.
+ */
+final class SecureRectMap {
+    private static final int INITIAL_CAPACITY = 16;
+
+    // number of int values per entry in coords: state rect, then actual rect
+    private static final int STRIDE = 8;
+
+    // maximum position change (per edge) which is still considered as a
+    // jitter rather than actual movement
+    private static final int MOVE_TOLERANCE = 1;
+
+    // hash table slots hold dense index + 1, zero denotes an empty slot
+    private int[] table = new int[INITIAL_CAPACITY * 2];
+    private int[] keys = new int[INITIAL_CAPACITY];
+    private int[] coords = new int[INITIAL_CAPACITY * STRIDE];
+    private int[] stamps = new int[INITIAL_CAPACITY];
+    private int size = 0;
+    private int stamp = 0;
+    // whether some actual rect still covers the previous position of its
+    // area, i.e. the next update changes the output even if it's empty
+    private boolean expanded = false;
+
+    // rectangles produced by the last update, 4 values per rectangle
+    private int[] output = new int[INITIAL_CAPACITY * 4];
+    private int outputCount = 0;
+
+    public int size() {
+        return size;
+    }
+
+    public void clear() {
+        Arrays.fill(table, 0);
+        size = 0;
+        outputCount = 0;
+        expanded = false;
+    }
+
+    /**
+     * Applies the full snapshot of rectangles in [id, x, y, width, height]
+     * layout, which starts at {@code offset}. Entries which are absent from
+     * the snapshot are removed.
+     */
+    public void update(IntBuffer boundsData, int offset) {
+        nextStamp();
+        outputCount = 0;
+        expanded = false;
+
+        int limit = boundsData.limit();
+        for (int i = offset; i + 4 < limit; i += 5) {
+            int index = put(boundsData, i);
+            appendActualRect(index);
+        }
+
+        // drop everything what was not mentioned in this update. Iteration
+        // goes backwards, as removal moves the last entry into the freed place
+        for (int index = size - 1; index >= 0; index--) {
+            if (stamps[index] != stamp) {
+                removeAt(index);
+            }
+        }
+    }
+
+    /**
+     * Applies the delta which starts at {@code offset} and has the following
+     * layout: [removed count, removed ids..., (id, x, y, width, height)...],
+     * where the trailing entries are either inserted or moved rectangles.
+     * Entries which are not mentioned in the delta are considered unchanged.
+     *
+     * @return false if the delta didn't change the output, in which case the
+     *         output of the previous update stays as is
+     */
+    public boolean applyDelta(IntBuffer deltaData, int offset) {
+        int limit = deltaData.limit();
+        int removedCount = (offset < limit) ? deltaData.get(offset) : 0;
+        int i = offset + 1;
+
+        if (removedCount <= 0 && i + 4 >= limit && !expanded) {
+            // nothing moved since the previous update, and nothing has to
+            // be collapsed, hence there is no need to walk the entries
+            return false;
+        }
+
+        nextStamp();
+        outputCount = 0;
+        expanded = false;
+
+        for (int removedEnd = Math.min(i + removedCount, limit); i < removedEnd; i++) {
+            int index = indexOf(deltaData.get(i));
+            if (index >= 0) {
+                removeAt(index);
+            }
+        }
+
+        for (; i + 4 < limit; i += 5) {
+            put(deltaData, i);
+        }
+
+        for (int index = 0; index < size; index++) {
+            if (stamps[index] != stamp) {
+                // rectangle didn't move since the previous update, hence it
+                // no longer needs to cover its previous position
+                int entryOffset = index * STRIDE;
+                System.arraycopy(coords, entryOffset, coords, entryOffset + 4, 4);
+            }
+            appendActualRect(index);
+        }
+
+        return true;
+    }
+
+    /**
+     * Rectangles produced by the last update in <left, top, right, bottom>
+     * layout. Only first {@link #getOutputCount()} rectangles are valid.
+     */
+    public int[] getOutput() {
+        return output;
+    }
+
+    public int getOutputCount() {
+        return outputCount;
+    }
+
+    private void appendOutput(int left, int top, int right, int bottom) {
+        if ((outputCount + 1) * 4 > output.length) {
+            output = Arrays.copyOf(output, output.length * 2);
+        }
+
+        int offset = outputCount * 4;
+        output[offset] = left;
+        output[offset + 1] = top;
+        output[offset + 2] = right;
+        output[offset + 3] = bottom;
+        outputCount++;
+    }
+
+    private int put(IntBuffer boundsData, int position) {
+        // Rect is constructed as <top left, right bottom>,
+        // hence sum up X + Width, and Y + Height to get
+        // right and bottom correspondingly
+        int id = boundsData.get(position);
+        int left = boundsData.get(position + 1);
+        int top = boundsData.get(position + 2);
+        int right = left + boundsData.get(position + 3);
+        int bottom = top + boundsData.get(position + 4);
+
+        int index = indexOf(id);
+
+        if (index < 0) {
+            index = insert(id);
+            int offset = index * STRIDE;
+            setRect(offset, left, top, right, bottom);
+            setRect(offset + 4, left, top, right, bottom);
+        } else {
+            int offset = index * STRIDE;
+            boolean isJitter = Math.abs(left - coords[offset]) <= MOVE_TOLERANCE
+                    && Math.abs(top - coords[offset + 1]) <= MOVE_TOLERANCE
+                    && Math.abs(right - coords[offset + 2]) <= MOVE_TOLERANCE
+                    && Math.abs(bottom - coords[offset + 3]) <= MOVE_TOLERANCE;
+
+            setRect(offset, left, top, right, bottom);
+
+            if (isJitter) {
+                setRect(offset + 4, left, top, right, bottom);
+            } else {
+                // area is moving, hence cover both its previous
+                // and current positions
+                expanded = true;
+                setRect(offset + 4,
+                        Math.min(left, coords[offset + 4]),
+                        Math.min(top, coords[offset + 5]),
+                        Math.max(right, coords[offset + 6]),
+                        Math.max(bottom, coords[offset + 7]));
+            }
+        }
+
+        stamps[index] = stamp;
+        return index;
+    }
+
+    private void appendActualRect(int index) {
+        int offset = index * STRIDE + 4;
+        appendOutput(coords[offset], coords[offset + 1], coords[offset + 2], coords[offset + 3]);
+    }
+
+    private void setRect(int offset, int left, int top, int right, int bottom) {
+        coords[offset] = left;
+        coords[offset + 1] = top;
+        coords[offset + 2] = right;
+        coords[offset + 3] = bottom;
+    }
+
+    private void nextStamp() {
+        stamp++;
+        if (stamp == 0) {
+            // stamp counter wrapped around, reset the stale values
+            // so they can't accidentally match the new ones
+            Arrays.fill(stamps, 0, size, 0);
+            stamp = 1;
+        }
+    }
+
+    private static int hash(int key) {
+        int h = key * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    private int slotOf(int key) {
+        int mask = table.length - 1;
+        int slot = hash(key) & mask;
+
+        while (true) {
+            int entry = table[slot];
+            if (entry == 0 || keys[entry - 1] == key) {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+    }
+
+    private int indexOf(int key) {
+        return table[slotOf(key)] - 1;
+    }
+
+    private int insert(int key) {
+        if ((size + 1) * 2 > table.length) {
+            rehash(table.length * 2);
+        }
+
+        if (size == keys.length) {
+            int newCapacity = keys.length * 2;
+            keys = Arrays.copyOf(keys, newCapacity);
+            stamps = Arrays.copyOf(stamps, newCapacity);
+            coords = Arrays.copyOf(coords, newCapacity * STRIDE);
+        }
+
+        int index = size++;
+        keys[index] = key;
+        table[slotOf(key)] = index + 1;
+        return index;
+    }
+
+    private void rehash(int newLength) {
+        table = new int[newLength];
+        for (int index = 0; index < size; index++) {
+            table[slotOf(keys[index])] = index + 1;
+        }
+    }
+
+    private void removeAt(int index) {
+        deleteSlot(slotOf(keys[index]));
+
+        int last = size - 1;
+        if (index != last) {
+            // move the last entry into the freed place to keep arrays dense
+            keys[index] = keys[last];
+            stamps[index] = stamps[last];
+            System.arraycopy(coords, last * STRIDE, coords, index * STRIDE, STRIDE);
+            table[slotOf(keys[index])] = index + 1;
+        }
+
+        size = last;
+    }
+
+    private void deleteSlot(int slot) {
+        // backward shift deletion: move subsequent entries of the probe
+        // sequence into the freed slot, so no tombstones are needed
+        int mask = table.length - 1;
+        int free = slot;
+        int current = slot;
+
+        while (true) {
+            current = (current + 1) & mask;
+            int entry = table[current];
+            if (entry == 0) {
+                break;
+            }
+
+            int home = hash(keys[entry - 1]) & mask;
+            boolean canMove = (current > free) ? (home <= free || home > current)
+                    : (home <= free && home > current);
+            if (canMove) {
+                table[free] = entry;
+                free = current;
+            }
+        }
+
+        table[free] = 0;
+    }
+}
@@ -0,0 +1,262 @@
+package com.bugsee;
+
+import java.util.Arrays;
+
+/**
+ * Reduces the number of secure rectangles before they are passed to the
+ * underlying SDK, as masking cost there grows with the number of rectangles.
+ * Merging is disabled by default, as it changes the masked geometry.
+ *
+ * Rectangles are processed in place in <left, top, right, bottom> layout.
+ * Merging only ever grows the covered area, hence nothing which was obscured
+ * before can become visible:
+ *
+ * 1. (optional) every rectangle is expanded to the coarse tile grid;
+ * 2. overlapping rectangles and the ones sharing an edge are replaced
+ *    with their union;
+ * 3. (optional) if there are still more rectangles than allowed, the pairs
+ *    which waste the least area when merged (i.e. the nearest ones) are
+ *    merged until the limit is met.
+ *
+ * Scratch buffers are reused between calls and only grow.
+ */
+final class SecureRectMerger {
+    private boolean enabled = false;
+    private int maxRects = 0;
+    private int tileSize = 0;
+
+    private long[] sortKeys = new long[0];
+    private int[] sortBuffer = new int[0];
+    // per rectangle flags: removed ones while merging the touching
+    // rectangles, and the ones with a stale partner while merging to limit
+    private boolean[] marks = new boolean[0];
+    private int[] partners = new int[0];
+    private long[] partnerCosts = new long[0];
+
+    public void configure(boolean enabled, int maxRects, int tileSize) {
+        this.enabled = enabled;
+        this.maxRects = Math.max(maxRects, 0);
+        this.tileSize = Math.max(tileSize, 0);
+    }
+
+    /**
+     * Merges first {@code count} rectangles of {@code bounds} and returns
+     * the resulting number of rectangles.
+     */
+    public int merge(int[] bounds, int count) {
+        if (!enabled || count < 2) {
+            return count;
+        }
+
+        ensureCapacity(count);
+
+        if (tileSize > 1) {
+            snapToTiles(bounds, count);
+        }
+
+        count = mergeTouching(bounds, count);
+
+        if (maxRects > 0 && count > maxRects) {
+            count = mergeToLimit(bounds, count);
+        }
+
+        return count;
+    }
+
+    private void ensureCapacity(int count) {
+        if (marks.length < count) {
+            int capacity = Math.max(count, marks.length * 2);
+            sortKeys = new long[capacity];
+            sortBuffer = new int[capacity * 4];
+            marks = new boolean[capacity];
+            partners = new int[capacity];
+            partnerCosts = new long[capacity];
+        }
+    }
+
+    private void snapToTiles(int[] bounds, int count) {
+        for (int offset = 0; offset < count * 4; offset += 4) {
+            bounds[offset] = floorToTile(bounds[offset]);
+            bounds[offset + 1] = floorToTile(bounds[offset + 1]);
+            bounds[offset + 2] = -floorToTile(-bounds[offset + 2]);
+            bounds[offset + 3] = -floorToTile(-bounds[offset + 3]);
+        }
+    }
+
+    private int floorToTile(int value) {
+        int remainder = value % tileSize;
+        return (remainder < 0) ? value - remainder - tileSize : value - remainder;
+    }
+
+    /**
+     * Sweeps over rectangles sorted by the left edge, so each one is only
+     * checked against the ones which start before its right edge. Another
+     * pass is needed only if something was merged, as grown rectangle may
+     * start touching the ones which were already checked.
+     */
+    private int mergeTouching(int[] bounds, int count) {
+        boolean merged = true;
+
+        while (merged) {
+            merged = false;
+            sortByLeft(bounds, count);
+            Arrays.fill(marks, 0, count, false);
+
+            for (int i = 0; i < count; i++) {
+                if (marks[i]) {
+                    continue;
+                }
+
+                int a = i * 4;
+                for (int j = i + 1; j < count && bounds[j * 4] <= bounds[a + 2]; j++) {
+                    if (!marks[j] && touches(bounds, a, j * 4)) {
+                        union(bounds, a, j * 4);
+                        marks[j] = true;
+                        merged = true;
+                        // grown rectangle may touch the ones skipped before
+                        j = i;
+                    }
+                }
+            }
+
+            if (merged) {
+                count = compact(bounds, count);
+            }
+        }
+
+        return count;
+    }
+
+    /**
+     * Greedily merges the pair with the least wasted area. Best partner of
+     * every rectangle is cached and only recomputed for the rectangles whose
+     * partner was affected by the merge.
+     */
+    private int mergeToLimit(int[] bounds, int count) {
+        for (int i = 0; i < count; i++) {
+            findPartner(bounds, count, i);
+        }
+
+        while (count > maxRects) {
+            int first = 0;
+            for (int i = 1; i < count; i++) {
+                if (partnerCosts[i] < partnerCosts[first]) {
+                    first = i;
+                }
+            }
+
+            int second = partners[first];
+            if (second < first) {
+                int swap = first;
+                first = second;
+                second = swap;
+            }
+
+            // second one is removed and the last one is moved into its place,
+            // hence references to the last one are updated as well
+            int last = count - 1;
+            for (int k = 0; k < count; k++) {
+                int partner = partners[k];
+                marks[k] = (k == first || partner == first || partner == second);
+                if (partner == last) {
+                    partners[k] = second;
+                }
+            }
+
+            union(bounds, first * 4, second * 4);
+            if (second != last) {
+                System.arraycopy(bounds, last * 4, bounds, second * 4, 4);
+                partners[second] = partners[last];
+                partnerCosts[second] = partnerCosts[last];
+                marks[second] = marks[last];
+            }
+            count = last;
+
+            for (int k = 0; k < count; k++) {
+                if (marks[k]) {
+                    findPartner(bounds, count, k);
+                }
+            }
+        }
+
+        return count;
+    }
+
+    private void findPartner(int[] bounds, int count, int index) {
+        int bestPartner = -1;
+        long bestCost = Long.MAX_VALUE;
+
+        for (int k = 0; k < count; k++) {
+            if (k != index) {
+                long cost = mergeCost(bounds, index * 4, k * 4);
+                if (cost < bestCost) {
+                    bestCost = cost;
+                    bestPartner = k;
+                }
+            }
+        }
+
+        partners[index] = bestPartner;
+        partnerCosts[index] = bestCost;
+    }
+
+    private static boolean touches(int[] bounds, int a, int b) {
+        // rectangles either overlap, or share (a part of) an edge.
+        // Touching by a corner only doesn't count, as the union would
+        // cover a lot of extra area
+        boolean overlapX = bounds[a] < bounds[b + 2] && bounds[b] < bounds[a + 2];
+        boolean overlapY = bounds[a + 1] < bounds[b + 3] && bounds[b + 1] < bounds[a + 3];
+        boolean touchX = bounds[a] <= bounds[b + 2] && bounds[b] <= bounds[a + 2];
+        boolean touchY = bounds[a + 1] <= bounds[b + 3] && bounds[b + 1] <= bounds[a + 3];
+        return (overlapX && touchY) || (touchX && overlapY);
+    }
+
+    private static long mergeCost(int[] bounds, int a, int b) {
+        long unionArea = (long) (Math.max(bounds[a + 2], bounds[b + 2]) - Math.min(bounds[a], bounds[b]))
+                * (Math.max(bounds[a + 3], bounds[b + 3]) - Math.min(bounds[a + 1], bounds[b + 1]));
+        return unionArea - area(bounds, a) - area(bounds, b);
+    }
+
+    private static long area(int[] bounds, int a) {
+        return (long) (bounds[a + 2] - bounds[a]) * (bounds[a + 3] - bounds[a + 1]);
+    }
+
+    private static void union(int[] bounds, int a, int b) {
+        bounds[a] = Math.min(bounds[a], bounds[b]);
+        bounds[a + 1] = Math.min(bounds[a + 1], bounds[b + 1]);
+        bounds[a + 2] = Math.max(bounds[a + 2], bounds[b + 2]);
+        bounds[a + 3] = Math.max(bounds[a + 3], bounds[b + 3]);
+    }
+
+    /**
+     * Removes the marked rectangles, keeping the order of the
+     * remaining ones
+     */
+    private int compact(int[] bounds, int count) {
+        int kept = 0;
+        for (int i = 0; i < count; i++) {
+            if (!marks[i]) {
+                if (kept != i) {
+                    System.arraycopy(bounds, i * 4, bounds, kept * 4, 4);
+                }
+                kept++;
+            }
+        }
+        return kept;
+    }
+
+    private void sortByLeft(int[] bounds, int count) {
+        // left edge goes to the high bits and index to the low ones, so
+        // sorting primitive keys gives the order without boxing anything
+        for (int i = 0; i < count; i++) {
+            sortKeys[i] = ((long) bounds[i * 4] << 32) | i;
+        }
+        Arrays.sort(sortKeys, 0, count);
+
+        System.arraycopy(bounds, 0, sortBuffer, 0, count * 4);
+        for (int i = 0; i < count; i++) {
+            int source = (int) sortKeys[i];
+            System.arraycopy(sortBuffer, source * 4, bounds, i * 4, 4);
+        }
+    }
+}
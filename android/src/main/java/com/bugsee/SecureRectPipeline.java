@@ -0,0 +1,145 @@
+package com.bugsee;
+
+import android.graphics.Rect;
+
+import androidx.annotation.Nullable;
+
+import java.nio.IntBuffer;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Turns the secure rectangles reported by the Flutter side into the SDK
+ * updates: rectangles are kept by their ids (see {@link SecureRectMap}),
+ * optionally merged (see {@link SecureRectMerger}) and passed to the SDK
+ * only when the resulting geometry changes (see {@link SecureRectBuffer}).
+ *
+ * Not thread safe, plugin drives it from the UI thread only.
+ */
+final class SecureRectPipeline {
+    private static final int FULL_SCREEN = 99999;
+
+    private final BugseeSdk sdk;
+    private final SecureRectMap map = new SecureRectMap();
+    private final SecureRectMerger merger = new SecureRectMerger();
+    private final SecureRectBuffer buffer = new SecureRectBuffer();
+    // map output is merged in place, hence it's copied here first, so the
+    // same rectangles can be published once again, e.g. when the full
+    // screen mask expires
+    private int[] bounds = new int[0];
+    // whether the SDK holds no rectangles after the last push
+    private boolean cleared = true;
+    private long updatesPushed = 0;
+    private long updatesSuppressed = 0;
+
+    SecureRectPipeline(BugseeSdk sdk) {
+        this.sdk = sdk;
+    }
+
+    public boolean isEmpty() {
+        return map.size() == 0;
+    }
+
+    /**
+     * Replaces all the rectangles with the snapshot, see
+     * {@link SecureRectMap#update(IntBuffer, int)}. Null or empty snapshot
+     * removes them all.
+     */
+    public void update(@Nullable IntBuffer boundsData, int offset) {
+        if ((boundsData != null) && (boundsData.limit() > offset)) {
+            map.update(boundsData, offset);
+        } else {
+            map.clear();
+        }
+    }
+
+    /**
+     * @return false if the delta changed nothing, see
+     *         {@link SecureRectMap#applyDelta(IntBuffer, int)}
+     */
+    public boolean applyDelta(IntBuffer deltaData, int offset) {
+        return map.applyDelta(deltaData, offset);
+    }
+
+    /**
+     * Passes the current rectangles to the SDK, unless they result in the
+     * same geometry as the last time. Can be called again without updating
+     * the rectangles, e.g. to drop the full screen mask
+     *
+     * @param maskFullScreen whether the whole screen must be masked in
+     *                       addition, e.g. while the screen rotates
+     * @return true if the SDK was updated
+     */
+    public boolean publish(boolean maskFullScreen) {
+        if (map.size() > 0) {
+            int count = map.getOutputCount();
+            int length = (count + 1) * 4;
+            if (bounds.length < length) {
+                bounds = new int[Math.max(length, bounds.length * 2)];
+            }
+            System.arraycopy(map.getOutput(), 0, bounds, 0, count * 4);
+
+            if (maskFullScreen) {
+                int offset = count * 4;
+                bounds[offset] = 0;
+                bounds[offset + 1] = 0;
+                bounds[offset + 2] = FULL_SCREEN;
+                bounds[offset + 3] = FULL_SCREEN;
+                count++;
+            }
+
+            count = merger.merge(bounds, count);
+
+            // SDK re-processes its masks on each call, hence skip the
+            // updates which do not change the resulting geometry
+            if (!cleared && buffer.matchesLast(bounds, count)) {
+                updatesSuppressed++;
+                return false;
+            }
+
+            cleared = false;
+            push(buffer.fill(bounds, count));
+        } else {
+            if (cleared) {
+                updatesSuppressed++;
+                return false;
+            }
+
+            cleared = true;
+            buffer.invalidate();
+            push(null);
+        }
+
+        return true;
+    }
+
+    /**
+     * Masks the whole screen right away, bypassing the rectangles. Next
+     * update is passed to the SDK regardless of its geometry.
+     */
+    public void maskFullScreen() {
+        sdk.setSecureRectsInternal(Collections.singletonList(new Rect(0, 0, FULL_SCREEN, FULL_SCREEN)));
+        buffer.invalidate();
+    }
+
+    public void configureMerging(boolean enabled, int maxRects, int tileSize) {
+        merger.configure(enabled, maxRects, tileSize);
+
+        // force the next update to be passed to the SDK, so the new
+        // options take effect right away
+        buffer.invalidate();
+    }
+
+    public long getUpdatesPushed() {
+        return updatesPushed;
+    }
+
+    public long getUpdatesSuppressed() {
+        return updatesSuppressed;
+    }
+
+    private void push(@Nullable List<Rect> rectangles) {
+        updatesPushed++;
+        sdk.setSecureRectsInternal(rectangles);
+    }
+}
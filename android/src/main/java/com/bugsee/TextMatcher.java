@@ -0,0 +1,106 @@
+package com.bugsee;
+
+import androidx.annotation.Nullable;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Compiled form of the text pattern received from the Flutter side. Pattern
+ * is either a plain substring or a regular expression. Plain case-sensitive
+ * substrings (which are the most common case) are matched without involving
+ * the regex engine at all.
+ *
+ * Instances are immutable and can be shared between threads.
+ */
+final class TextMatcher {
+    @Nullable
+    private final String literal;
+    @Nullable
+    private final Pattern pattern;
+
+    private TextMatcher(@Nullable String literal, @Nullable Pattern pattern) {
+        this.literal = literal;
+        this.pattern = pattern;
+    }
+
+    /**
+     * Creates matcher from its serialized form: {pattern, regex, caseSensitive}
+     *
+     * @throws java.util.regex.PatternSyntaxException if regular expression is invalid
+     */
+    public static TextMatcher fromMap(Map<String, Object> data) {
+        String source = (String) data.get("pattern");
+        boolean isRegex = Boolean.TRUE.equals(data.get("regex"));
+        boolean caseSensitive = !Boolean.FALSE.equals(data.get("caseSensitive"));
+
+        if (source == null) {
+            source = "";
+        }
+
+        if (!isRegex && caseSensitive) {
+            return new TextMatcher(source, null);
+        }
+
+        int flags = caseSensitive ? 0 : (Pattern.CASE_INSENSITIVE | Pattern.UNICODE_CASE);
+        if (!isRegex) {
+            flags |= Pattern.LITERAL;
+        }
+        return new TextMatcher(null, Pattern.compile(source, flags));
+    }
+
+    @SuppressWarnings("unchecked")
+    public static TextMatcher[] listFromObject(@Nullable Object data) {
+        if (!(data instanceof List)) {
+            return new TextMatcher[0];
+        }
+
+        List<Object> items = (List<Object>) data;
+        ArrayList<TextMatcher> matchers = new ArrayList<>(items.size());
+        for (Object item : items) {
+            if (item instanceof Map) {
+                matchers.add(fromMap((Map<String, Object>) item));
+            }
+        }
+        return matchers.toArray(new TextMatcher[0]);
+    }
+
+    public static boolean anyFound(TextMatcher[] matchers, String text) {
+        for (TextMatcher matcher : matchers) {
+            if (matcher.find(text)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public boolean find(String text) {
+        if (literal != null) {
+            return text.contains(literal);
+        }
+        return pattern.matcher(text).find();
+    }
+
+    public boolean matchesFully(String text) {
+        if (literal != null) {
+            return text.equals(literal);
+        }
+        return pattern.matcher(text).matches();
+    }
+
+    /**
+     * Replaces every occurrence of the pattern with {@code replacement},
+     * which is always treated literally
+     */
+    public String replaceAll(String text, String replacement) {
+        if (literal != null) {
+            return literal.isEmpty() ? text : text.replace(literal, replacement);
+        }
+
+        Matcher matcher = pattern.matcher(text);
+        return matcher.find() ? matcher.replaceAll(Matcher.quoteReplacement(replacement)) : text;
+    }
+}
@@ -0,0 +1,117 @@
+package com.bugsee;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.view.Choreographer;
+
+import androidx.annotation.Nullable;
+import androidx.annotation.UiThread;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Coalesces work which has to be done on the UI thread. Tasks can be posted
+ * from any thread into the lock-free queue and are executed in batches once
+ * per frame (via {@link Choreographer}), so bursts of tasks cost a single
+ * main looper message instead of one message per task.
+ *
+ * Frames are not produced while the app has no visible window, hence the
+ * drain is also scheduled through the regular main looper message with a
+ * small delay, whichever comes first.
+ */
+final class UiDispatchQueue implements UiScheduler {
+    private static final long FALLBACK_DRAIN_DELAY_MS = 50;
+
+    // upper limit of tasks executed per drain, so a huge burst is spread
+    // over several frames instead of blocking the UI thread
+    private static final int MAX_TASKS_PER_DRAIN = 256;
+
+    private final ConcurrentLinkedQueue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean drainScheduled = new AtomicBoolean(false);
+    private final Handler handler = new Handler(Looper.getMainLooper());
+
+    // Choreographer is bound to the thread it was obtained on, hence it's
+    // taken on the first drain, which always happens on the UI thread
+    @Nullable
+    private volatile Choreographer choreographer;
+
+    private final Choreographer.FrameCallback frameCallback = new Choreographer.FrameCallback() {
+        @Override
+        public void doFrame(long frameTimeNanos) {
+            drain();
+        }
+    };
+
+    private final Runnable drainRunnable = new Runnable() {
+        @Override
+        public void run() {
+            drain();
+        }
+    };
+
+    @Override
+    public void post(Runnable task) {
+        tasks.offer(task);
+        scheduleDrain();
+    }
+
+    /**
+     * Runs the task on the UI thread after the delay. Unlike the queued tasks,
+     * these are not coalesced, so they are meant for rare events like timeouts
+     */
+    @Override
+    public void postDelayed(Runnable task, long delayMs) {
+        handler.postDelayed(task, delayMs);
+    }
+
+    @Override
+    public void cancel(Runnable task) {
+        handler.removeCallbacks(task);
+    }
+
+    private void scheduleDrain() {
+        if (!drainScheduled.compareAndSet(false, true)) {
+            return;
+        }
+
+        Choreographer frameChoreographer = choreographer;
+        if (frameChoreographer != null) {
+            frameChoreographer.postFrameCallback(frameCallback);
+            handler.postDelayed(drainRunnable, FALLBACK_DRAIN_DELAY_MS);
+        } else {
+            handler.post(drainRunnable);
+        }
+    }
+
+    @UiThread
+    private void drain() {
+        Choreographer frameChoreographer = choreographer;
+        if (frameChoreographer == null) {
+            frameChoreographer = Choreographer.getInstance();
+            choreographer = frameChoreographer;
+        } else {
+            frameChoreographer.removeFrameCallback(frameCallback);
+        }
+        handler.removeCallbacks(drainRunnable);
+
+        // reset the flag before polling, so tasks posted from now on
+        // schedule the next drain, while the ones posted earlier are
+        // guaranteed to be polled below
+        drainScheduled.set(false);
+
+        try {
+            for (int i = 0; i < MAX_TASKS_PER_DRAIN; i++) {
+                Runnable task = tasks.poll();
+                if (task == null) {
+                    break;
+                }
+                task.run();
+            }
+        } finally {
+            if (!tasks.isEmpty()) {
+                scheduleDrain();
+            }
+        }
+    }
+}
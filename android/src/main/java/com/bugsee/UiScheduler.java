@@ -0,0 +1,22 @@
+package com.bugsee;
+
+/**
+ * Runs tasks on the UI thread. Implemented by {@link UiDispatchQueue}, the
+ * plain interface allows to drive the callback dispatching with a manual
+ * clock in the tests.
+ */
+interface UiScheduler {
+    /**
+     * Runs the task on the UI thread as soon as possible. Can be called from
+     * any thread
+     */
+    void post(Runnable task);
+
+    /**
+     * Runs the task on the UI thread after the delay. Can be called from any
+     * thread
+     */
+    void postDelayed(Runnable task, long delayMs);
+
+    void cancel(Runnable task);
+}
@@ -4,14 +4,17 @@ import 'dart:async';
 import 'dart:io';
 import 'dart:math';
 
+import 'package:flutter/foundation.dart';
 import 'package:flutter/services.dart';
 import 'package:flutter/widgets.dart';
 import 'package:stack_trace/stack_trace.dart';
 
 import 'src/appearance.dart';
+import 'src/batching.dart';
 import 'src/callbacks.dart';
 import 'src/enums.dart';
 import 'src/exceptions.dart';
+import 'src/filters.dart';
 import 'src/networking_pre25.dart';
 import 'src/options.dart';
 import 'src/state.dart';
@@ -21,6 +24,7 @@ import 'src/version.dart';
 
 export 'src/appearance.dart';
 export 'src/enums.dart';
+export 'src/filters.dart';
 export 'src/networking_pre25.dart' show BugseeHttpOverrides;
 export 'src/options.dart'
     show AndroidLaunchOptions, IOSLaunchOptions, BugseeLaunchOptions;
@@ -33,10 +37,18 @@ class Bugsee {
   static final HttpOverrides _httpOverrides = BugseeHttpOverrides();
 
   static MethodChannel? _channel;
+  // channel for the methods which don't touch UI. On Android it's handled
+  // on a background thread, elsewhere it's the same as [_channel]
+  static MethodChannel? _telemetryChannel;
   static BugseeAppearance? _appearance;
   static BugseeExceptionHandler? _exceptionHandler;
   static BugseeCallbacks? _callbacks;
   static BugseeViewManager? _viewManager;
+  static BugseeLogBatcher? _logBatcher;
+  static BugseeTelemetryBatcher? _telemetryBatcher;
+  static BugseeNetworkEventBatcher? _networkEventBatcher;
+  // telemetry channel calls which are not batched and are still in flight
+  static final Set<Future<void>> _pendingTelemetryCalls = <Future<void>>{};
 
   static BugseeAppearance get appearance {
     _init();
@@ -50,9 +62,17 @@ class Bugsee {
     if (_channel == null) {
       WidgetsFlutterBinding.ensureInitialized();
       _channel = const MethodChannel('bugsee');
+      _telemetryChannel =
+          Platform.isAndroid ? const MethodChannel('bugsee/telemetry') : _channel;
       _appearance = BugseeAppearance(_channel!);
       _exceptionHandler = BugseeExceptionHandler(_channel!);
-      _callbacks = BugseeCallbacks(_channel!);
+      _callbacks = BugseeCallbacks(_channel!, _telemetryChannel);
+      _exceptionHandler!.onBeforeSend = _flushBatches;
+      if (Platform.isAndroid) {
+        _logBatcher = BugseeLogBatcher(_telemetryChannel!);
+        _telemetryBatcher = BugseeTelemetryBatcher(_telemetryChannel!);
+        _networkEventBatcher = BugseeNetworkEventBatcher(_telemetryChannel!);
+      }
       _viewManager = BugseeViewManager(_channel!);
 
       _callbacks!.setAdditionalDataCaptureCallback((kind) {
@@ -70,7 +90,7 @@ class Bugsee {
   // ----------------------------------------------------------------------------------
 
   static Future<bool> _initAndLaunch(String appToken,
-      {BugseeLaunchOptions? launchOptions}) async {
+      {BugseeLaunchOptions? launchOptions, bool asyncLaunch = false}) async {
     _init();
     await autoFillVersionInternal();
     // either use provided options, or fallback to explicit defaults
@@ -78,8 +98,26 @@ class Bugsee {
     var params = <String, dynamic>{
       'token': appToken,
       'launchOptions': getLaunchOptions()!.toMap(),
+      'async': asyncLaunch && Platform.isAndroid,
     };
+    _callbacks?.resetLaunchReady();
     var launched = ((await _channel?.invokeMethod('launch', params)) ?? 0) != 0;
+    if (!Platform.isAndroid) {
+      // readiness is reported natively on Android only
+      _callbacks?.completeLaunchReady(<String, dynamic>{'launched': launched});
+    }
+    if (launched && params['async'] == true) {
+      // native side replies once the launch is scheduled, so the setup
+      // which relies on the launched SDK waits for the actual outcome
+      _callbacks!.launchReady.then(
+          (readiness) => _setUpAfterLaunch(readiness['launched'] == true));
+    } else {
+      _setUpAfterLaunch(launched);
+    }
+    return Future.value(launched);
+  }
+
+  static void _setUpAfterLaunch(bool launched) {
     if (launched) {
       _exceptionHandler?.syncWithOptions(getLaunchOptions());
       _viewManager?.startViewTracking();
@@ -87,17 +125,26 @@ class Bugsee {
       // launch failed -> deactivate exceptions handler
       _exceptionHandler?.deactivateUnhandledInterception();
     }
-    return Future.value(launched);
   }
 
   /// Launch Bugsee
+  ///
+  /// With [asyncLaunch] (Android only) the returned future completes once
+  /// the launch is scheduled, while the actual outcome is reported via
+  /// [launchReady]. View tracking and exceptions interception are set up
+  /// only after that. Note that the SDK itself is still launched on the
+  /// main thread, only the removal of stale attachment files is moved to
+  /// a worker. So this lets the app
+  /// continue its startup sooner, but saves little main thread time.
   static Future<bool> launch(String appToken,
       {AppRunCallback? appRunCallback,
-      BugseeLaunchOptions? launchOptions}) async {
+      BugseeLaunchOptions? launchOptions,
+      bool asyncLaunch = false}) async {
     bool launched = false;
 
     var launchCallback = () async {
-      launched = await _initAndLaunch(appToken, launchOptions: launchOptions);
+      launched = await _initAndLaunch(appToken,
+          launchOptions: launchOptions, asyncLaunch: asyncLaunch);
       _exceptionHandler?.installGlobalErrorHandler();
     };
 
@@ -120,9 +167,71 @@ class Bugsee {
     return Future.value(launched);
   }
 
+  /// Completes once the launch is finished and the next frame after it
+  /// is scheduled, i.e. recording can start. Result holds the "launched"
+  /// flag and (on Android) "timings" of the launch phases in microseconds:
+  /// optionParsing, queueWait, sdkInit, nextFrame (time up to the next
+  /// vsync after the SDK init), as well as the time spent on the main
+  /// thread and the total time.
+  ///
+  /// When launched with [asyncLaunch] (Android only), [launch] completes
+  /// once the launch is scheduled, so the actual outcome is reported here.
+  /// View tracking and exceptions interception start once it completes.
+  static Future<Map<String, dynamic>> get launchReady {
+    _init();
+    return _callbacks!.launchReady;
+  }
+
+  /// Flushes all the batched data to the native side and waits for the
+  /// telemetry calls which are still in flight. Telemetry and main channels
+  /// are handled on different threads natively, hence main channel calls
+  /// which capture the state (reports, exceptions, stop) must await this
+  /// to be ordered after the preceding telemetry calls.
+  ///
+  /// Flush is best-effort and never fails: telemetry which failed to be
+  /// sent must not prevent the report or exception which follows it
+  static Future<void> _flushBatches() async {
+    await _flushQuietly('logBatch', _logBatcher?.flush());
+    await _flushQuietly('telemetryBatch', _telemetryBatcher?.flush());
+    await _flushQuietly(
+        'registerNetworkEvents', _networkEventBatcher?.flush());
+    if (_pendingTelemetryCalls.isNotEmpty) {
+      await _flushQuietly(
+          'telemetry calls', Future.wait(_pendingTelemetryCalls.toList()));
+    }
+  }
+
+  static Future<void> _flushQuietly(String what, Future<void>? flush) async {
+    try {
+      await flush;
+    } catch (error) {
+      debugPrint('Bugsee: failed to send $what: $error');
+    }
+  }
+
+  /// Invokes the method on the telemetry channel and tracks it until it's
+  /// handled natively, so [_flushBatches] can wait for it
+  static Future<T?> _invokeTelemetry<T>(String method, [dynamic arguments]) {
+    var channel = _telemetryChannel;
+    if (channel == null) {
+      return Future<T?>.value(null);
+    }
+
+    var call = channel.invokeMethod<T>(method, arguments);
+    if (!identical(channel, _channel)) {
+      // errors are reported to the caller, here it only matters when the
+      // call is done
+      Future<void> settled = call.then<void>((_) {}, onError: (Object _) {});
+      _pendingTelemetryCalls.add(settled);
+      settled.whenComplete(() => _pendingTelemetryCalls.remove(settled));
+    }
+    return call;
+  }
+
   /// Stop Bugsee
   static Future<void> stop() async {
     _viewManager?.stopViewTracking();
+    await _flushBatches();
     await _channel?.invokeMethod('stop', <String, dynamic>{});
   }
 
@@ -132,6 +241,8 @@ class Bugsee {
     var launched = false;
 
     if (_channel != null) {
+      // data collected so far belongs to the previous session
+      await _flushBatches();
       // either use provided options, or fallback to the initially passed
       // options
       setLaunchOptions(
@@ -176,9 +287,17 @@ class Bugsee {
 
   /// Log message to the Bugsee log stream
   static Future<void> log(String text, [BugseeLogLevel? level]) async {
-    await _channel?.invokeMethod('log', <String, dynamic>{
+    var levelValue = (level != null) ? level.index : BugseeLogLevel.info.index;
+
+    if (_logBatcher != null) {
+      // messages are passed to the native side in batches
+      _logBatcher!.add(text, levelValue);
+      return;
+    }
+
+    await _invokeTelemetry('log', <String, dynamic>{
       'text': text,
-      'level': (level != null) ? level.index : BugseeLogLevel.info.index
+      'level': levelValue
     });
   }
 
@@ -189,6 +308,23 @@ class Bugsee {
     _callbacks?.setLogFilter(logFilterCallback);
   }
 
+  /// Set rules which are evaluated natively for every log line, so the
+  /// common filtering doesn't require the round-trip to Dart. Pass null
+  /// to remove the rules. Returns false if rules are invalid (and hence
+  /// were not applied). Android only.
+  static Future<bool> setLogFilterRules(BugseeLogFilterRules? rules) async {
+    _init();
+
+    if (!Platform.isAndroid) {
+      return false;
+    }
+
+    bool? isValid = await _channel?.invokeMethod('setLogFilterRules',
+        <String, dynamic>{'rules': rules?.toMap()});
+
+    return isValid ?? false;
+  }
+
   // ----------------------------------------------------------------------------------
   // Networking
   // ----------------------------------------------------------------------------------
@@ -201,11 +337,33 @@ class Bugsee {
     _callbacks?.setNetworkFilter(networkFilterCallback);
   }
 
+  /// Set rules which are evaluated natively for every network event, so
+  /// the common redaction doesn't require passing events to Dart. Pass
+  /// null to remove the rules. Returns false if rules are invalid (and
+  /// hence were not applied). Android only.
+  static Future<bool> setNetworkRedactionRules(
+      BugseeNetworkRedactionRules? rules) async {
+    _init();
+
+    if (!Platform.isAndroid) {
+      return false;
+    }
+
+    bool? isValid = await _channel?.invokeMethod('setNetworkRedactionRules',
+        <String, dynamic>{'rules': rules?.toMap()});
+
+    return isValid ?? false;
+  }
+
   static void registerNetworkEvent(dynamic eventData) {
     _init();
     _callbacks?.triggerNetworkFilterCallback(eventData).then((filteredEvent) {
       if (filteredEvent != null) {
-        _channel?.invokeMethod('registerNetworkEvent', filteredEvent);
+        if (_networkEventBatcher != null) {
+          _networkEventBatcher!.add(filteredEvent);
+        } else {
+          _invokeTelemetry('registerNetworkEvent', filteredEvent);
+        }
       }
     });
   }
@@ -219,20 +377,79 @@ class Bugsee {
     _callbacks?.setAttachmentsCallback(callback);
   }
 
+  /// Set size limits of the attachments provided by the attachments
+  /// callback. Attachments larger than [maxAttachmentSize] bytes are
+  /// truncated, and the ones which don't fit into [maxTotalSize] bytes
+  /// per report are skipped. Attachments are compressed on a background
+  /// thread according to [compression], where [compressionLevel] ranges
+  /// from 1 (fastest) to 9 (smallest). Android only.
+  static Future<void> setAttachmentOptions(
+      {int? maxAttachmentSize,
+      int? maxTotalSize,
+      BugseeAttachmentCompression compression =
+          BugseeAttachmentCompression.none,
+      int? compressionLevel}) async {
+    _init();
+
+    if (!Platform.isAndroid) {
+      return;
+    }
+
+    await _channel?.invokeMethod('setAttachmentOptions', <String, dynamic>{
+      'maxAttachmentSize': maxAttachmentSize,
+      'maxTotalSize': maxTotalSize,
+      'compression': compression.index,
+      'compressionLevel': compressionLevel,
+    });
+  }
+
+  /// Set limits of the items waiting for the reply from the network
+  /// filter, log filter and attachments callbacks. Limits which are not
+  /// specified stay unchanged. Network and log filters are not limited by
+  /// default, i.e. they wait for the reply indefinitely and never drop
+  /// events, while the attachments callback is limited to 4 reports in
+  /// flight and 30 seconds per report. Android only.
+  static Future<void> setFilterLimits(
+      {BugseeFilterLimits? network,
+      BugseeFilterLimits? log,
+      BugseeFilterLimits? attachments}) async {
+    _init();
+
+    if (!Platform.isAndroid) {
+      return;
+    }
+
+    await _channel?.invokeMethod('setFilterLimits', <String, dynamic>{
+      'network': network?.toMap(),
+      'log': log?.toMap(),
+      'attachments': attachments?.toMap(),
+    });
+  }
+
   // ----------------------------------------------------------------------------------
   // Events and traces
   // ----------------------------------------------------------------------------------
 
   static Future<Null> event(String name,
       [Map<String, dynamic>? parameters]) async {
-    await _channel?.invokeMethod('event', <String, dynamic>{
+    if (_telemetryBatcher != null) {
+      _telemetryBatcher!.addEvent(name, parameters);
+      return;
+    }
+
+    await _invokeTelemetry('event', <String, dynamic>{
       'name': name,
       'parameters': parameters,
     });
   }
 
   static Future<Null> trace(String name, dynamic value) async {
-    await _channel?.invokeMethod('trace', <String, dynamic>{
+    if (_telemetryBatcher != null) {
+      _telemetryBatcher!.addTrace(name, value);
+      return;
+    }
+
+    await _invokeTelemetry('trace', <String, dynamic>{
       'name': name,
       'value': value,
     });
@@ -287,7 +504,7 @@ class Bugsee {
 
   static Future<void> setAttribute(String key, dynamic value) async {
     _init();
-    await _channel?.invokeMethod('setAttribute', <String, dynamic>{
+    await _invokeTelemetry('setAttribute', <String, dynamic>{
       'key': key,
       'value': value,
     });
@@ -295,21 +512,73 @@ class Bugsee {
 
   static Future<void> clearAttribute(String key) async {
     _init();
-    await _channel?.invokeMethod('clearAttribute', <String, dynamic>{
+    await _invokeTelemetry('clearAttribute', <String, dynamic>{
       'key': key,
     });
   }
 
   static Future<dynamic> getAttribute(String key) async {
     _init();
-    return await _channel?.invokeMethod('getAttribute', <String, dynamic>{
+    return await _telemetryChannel?.invokeMethod('getAttribute', <String, dynamic>{
       'key': key,
     });
   }
 
   static Future<void> clearAllAttributes(String key) async {
     _init();
-    await _channel?.invokeMethod('clearAllAttributes');
+    await _invokeTelemetry('clearAllAttributes');
+  }
+
+  /// Sets multiple attributes in a single call
+  static Future<void> setAttributes(Map<String, dynamic> attributes) async {
+    _init();
+
+    if (!Platform.isAndroid) {
+      for (var entry in attributes.entries) {
+        await setAttribute(entry.key, entry.value);
+      }
+      return;
+    }
+
+    await _invokeTelemetry('setAttributes', <String, dynamic>{
+      'attributes': attributes,
+    });
+  }
+
+  /// Reads multiple attributes in a single call
+  static Future<Map<String, dynamic>> getAttributes(List<String> keys) async {
+    _init();
+
+    if (!Platform.isAndroid) {
+      var attributes = <String, dynamic>{};
+      for (var key in keys) {
+        attributes[key] = await getAttribute(key);
+      }
+      return attributes;
+    }
+
+    dynamic rawResult = await _telemetryChannel
+        ?.invokeMethod('getAttributes', <String, dynamic>{'keys': keys});
+    return (rawResult != null)
+        ? Map<String, dynamic>.from(rawResult)
+        : <String, dynamic>{};
+  }
+
+  /// Enables write-behind caching of the attributes. Writes are collected
+  /// for [writeDelay] and then applied at once, so repeated writes to the
+  /// same key within that period cost a single native call, while reads
+  /// are served from memory. Pending writes are applied before exceptions
+  /// and reports are captured. Null disables caching. Android only.
+  static Future<void> setAttributesWriteDelay(Duration? writeDelay) async {
+    _init();
+
+    if (!Platform.isAndroid) {
+      return;
+    }
+
+    await _channel?.invokeMethod('setAttributesWriteDelay', <String, dynamic>{
+      'writeDelayMs': writeDelay?.inMilliseconds ?? 0,
+    });
   }
 
   // ----------------------------------------------------------------------------------
@@ -355,6 +624,44 @@ class Bugsee {
     return null;
   }
 
+  /// Configures how automatically detected secure rectangles are merged
+  /// before they are passed to the native SDK. Merging is disabled by
+  /// default, as it changes the masked geometry. Overlapping rectangles and
+  /// the ones sharing an edge are merged when [enabled] is true. Non-zero
+  /// [maxRects] caps the number of resulting rectangles by merging the
+  /// nearest ones, and non-zero [tileSize] (in physical pixels) expands
+  /// rectangles to a coarse grid first. Android only.
+  static Future<void> setSecureRectsMergeOptions(
+      {bool enabled = false, int maxRects = 0, int tileSize = 0}) async {
+    _init();
+
+    if (!Platform.isAndroid) {
+      return;
+    }
+
+    await _channel?.invokeMethod('setSecureRectsMergeOptions', <String, dynamic>{
+      'enabled': enabled,
+      'maxRects': maxRects,
+      'tileSize': tileSize,
+    });
+  }
+
+  /// Returns counters of internal secure rectangles updates: how many
+  /// of them were passed to the native SDK ("pushed") and how many were
+  /// skipped as they didn't change anything ("suppressed"). Android only.
+  static Future<Map<String, int>?> getSecureRectsStats() async {
+    _init();
+
+    if (!Platform.isAndroid) {
+      return null;
+    }
+
+    Map<dynamic, dynamic>? rawStats =
+        await _channel?.invokeMethod('getSecureRectsStats', <String, dynamic>{});
+
+    return rawStats != null ? Map<String, int>.from(rawStats) : null;
+  }
+
   // ----------------------------------------------------------------------------------
   // Exception logging
   // ----------------------------------------------------------------------------------
@@ -390,6 +697,7 @@ class Bugsee {
       String? description,
       BugseeSeverityLevel? severity,
       List<String>? labels]) async {
+    await _flushBatches();
     await _channel?.invokeMethod('upload', <String, dynamic>{
       'summary': summary,
       'description': description,
@@ -405,6 +713,7 @@ class Bugsee {
       String? description,
       BugseeSeverityLevel? severity,
       List<String>? labels]) async {
+    await _flushBatches();
     await _channel?.invokeMethod('showReportDialog', <String, dynamic>{
       'summary': summary,
       'description': description,
@@ -424,6 +733,31 @@ class Bugsee {
     _callbacks?.setLifecycleCallback(callback);
   }
 
+  // ----------------------------------------------------------------------------------
+  // Diagnostics
+  // ----------------------------------------------------------------------------------
+
+  /// Returns the cost of the communication with the native side. Stats
+  /// are grouped by direction ("incoming" and "outgoing") and method name,
+  /// each entry holding number of calls, total and max latency (in
+  /// microseconds), approximate payload size in bytes and latency histogram,
+  /// where bucket N counts calls which took less than 2^N microseconds.
+  /// Binary payloads are measured on every call, while structured ones are
+  /// measured on every 16th call only and extrapolated to the rest.
+  /// Android only.
+  static Future<Map<String, dynamic>?> getBridgeStats() async {
+    _init();
+
+    if (!Platform.isAndroid) {
+      return null;
+    }
+
+    Map<dynamic, dynamic>? rawStats =
+        await _channel?.invokeMethod('getBridgeStats', <String, dynamic>{});
+
+    return rawStats != null ? Map<String, dynamic>.from(rawStats) : null;
+  }
+
   // ----------------------------------------------------------------------------------
   // Test crash triggers
   // ----------------------------------------------------------------------------------
@@ -1,4 +1,5 @@
 import 'dart:async';
+import 'dart:typed_data';
 import 'dart:ui';
 
 import 'package:flutter/services.dart';
@@ -30,6 +31,28 @@ class BugseeAppearanceBase {
 
     return null;
   }
+
+  /// Sets multiple colors at once, where keys are the names of the
+  /// corresponding getters, e.g. `reportTextColor`
+  Future<void> setProperties(Map<String, Color> values) async {
+    for (var entry in values.entries) {
+      await _setProperty(entry.key, entry.value);
+    }
+  }
+
+  /// Reads multiple colors at once, where names are the names of the
+  /// corresponding getters. Properties which can't be read are omitted from
+  /// the result
+  Future<Map<String, Color>> getProperties(List<String> propertyNames) async {
+    var values = <String, Color>{};
+    for (var propertyName in propertyNames) {
+      var value = await _getProperty(propertyName);
+      if (value != null) {
+        values[propertyName] = value;
+      }
+    }
+    return values;
+  }
 }
 
 class BugseeAppearanceIOS extends BugseeAppearanceBase {
@@ -174,6 +197,35 @@ class BugseeAppearanceIOS extends BugseeAppearanceBase {
 class BugseeAppearanceAndroid extends BugseeAppearanceBase {
   const BugseeAppearanceAndroid(MethodChannel channel) : super(channel);
 
+  @override
+  Future<void> setProperties(Map<String, Color> values) async {
+    // colors are passed as the packed ARGB values in a single call
+    await _channel.invokeMethod('setAppearance', <String, dynamic>{
+      'names': values.keys.toList(),
+      'colors': Int32List.fromList(
+          values.values.map((color) => color.value).toList()),
+    });
+  }
+
+  @override
+  Future<Map<String, Color>> getProperties(List<String> propertyNames) async {
+    dynamic rawResult = await _channel.invokeMethod(
+        'getAppearance', <String, dynamic>{'names': propertyNames});
+
+    var values = <String, Color>{};
+    if (rawResult != null) {
+      Int32List colors = rawResult['colors'];
+      Set<int> missing = Set<int>.from(rawResult['missing']);
+      for (var i = 0; i < colors.length; i++) {
+        if (!missing.contains(i)) {
+          // ARGB value is signed on the native side
+          values[propertyNames[i]] = Color(colors[i] & 0xFFFFFFFF);
+        }
+      }
+    }
+    return values;
+  }
+
   Future<Color?> get reportActionBarColor =>
       _getProperty('ReportActionBarColor');
   Future<Null> setReportActionBarColor(Color value) async {
@@ -0,0 +1,288 @@
+import 'dart:async';
+import 'dart:typed_data';
+
+import 'package:flutter/foundation.dart';
+import 'package:flutter/services.dart';
+
+/// Base class for the data which is passed to the native side in batches,
+/// so bursts of items don't cost a channel round-trip each. Batch is
+/// flushed when it reaches [maxBatchSize] items or after [flushInterval]
+/// passes since the first item was added.
+abstract class _BugseeBatcher {
+  static const int maxBatchSize = 100;
+  static const Duration flushInterval = Duration(milliseconds: 200);
+
+  final MethodChannel _channel;
+  Timer? _flushTimer;
+
+  _BugseeBatcher(MethodChannel channel) : _channel = channel;
+
+  int get length;
+
+  /// Packs the pending items into the method arguments and resets them
+  Map<String, dynamic> _takeArguments();
+
+  String get _methodName;
+
+  void _onItemAdded() {
+    if (length >= maxBatchSize) {
+      _flushUnawaited();
+    } else {
+      _flushTimer ??= Timer(flushInterval, _flushUnawaited);
+    }
+  }
+
+  /// Nobody awaits the flushes triggered by the timer or by the batch size,
+  /// hence their errors are reported here instead of being left unhandled
+  void _flushUnawaited() {
+    flush().catchError((Object error) {
+      debugPrint('Bugsee: failed to send $_methodName: $error');
+    });
+  }
+
+  Future<void> flush() async {
+    _flushTimer?.cancel();
+    _flushTimer = null;
+
+    if (length == 0) {
+      return;
+    }
+
+    await _channel.invokeMethod(_methodName, _takeArguments());
+  }
+}
+
+/// Batches log messages for the "logBatch" method
+class BugseeLogBatcher extends _BugseeBatcher {
+  List<String> _texts = [];
+  List<int> _levels = [];
+
+  BugseeLogBatcher(MethodChannel channel) : super(channel);
+
+  @override
+  int get length => _texts.length;
+
+  @override
+  String get _methodName => 'logBatch';
+
+  void add(String text, int level) {
+    _texts.add(text);
+    _levels.add(level);
+    _onItemAdded();
+  }
+
+  @override
+  Map<String, dynamic> _takeArguments() {
+    var arguments = <String, dynamic>{
+      'texts': _texts,
+      'levels': Int32List.fromList(_levels),
+    };
+
+    _texts = [];
+    _levels = [];
+
+    return arguments;
+  }
+}
+
+/// Batches interleaved events and traces for the "telemetryBatch" method.
+/// Items are replayed on the native side in the order they were added
+class BugseeTelemetryBatcher extends _BugseeBatcher {
+  static const int _eventKind = 0;
+  static const int _traceKind = 1;
+
+  List<int> _kinds = [];
+  List<String> _names = [];
+  List<dynamic> _values = [];
+
+  BugseeTelemetryBatcher(MethodChannel channel) : super(channel);
+
+  @override
+  int get length => _kinds.length;
+
+  @override
+  String get _methodName => 'telemetryBatch';
+
+  void addEvent(String name, Map<String, dynamic>? parameters) {
+    _add(_eventKind, name, parameters);
+  }
+
+  void addTrace(String name, dynamic value) {
+    _add(_traceKind, name, value);
+  }
+
+  void _add(int kind, String name, dynamic value) {
+    // value which can't be encoded would fail the whole batch, hence it's
+    // rejected right here, so the error reaches the caller of event/trace
+    if (!_isEncodable(value)) {
+      throw ArgumentError.value(value, name, 'Unsupported value type');
+    }
+
+    _kinds.add(kind);
+    _names.add(name);
+    _values.add(value);
+    _onItemAdded();
+  }
+
+  /// Checks that the value consists of the types supported by
+  /// [StandardMessageCodec] only, without encoding it
+  static bool _isEncodable(dynamic value) {
+    if (value == null ||
+        value is bool ||
+        value is num ||
+        value is String ||
+        value is Uint8List ||
+        value is Int32List ||
+        value is Int64List ||
+        value is Float32List ||
+        value is Float64List) {
+      return true;
+    }
+
+    if (value is List) {
+      return value.every(_isEncodable);
+    }
+
+    if (value is Map) {
+      return value.entries.every(
+          (entry) => _isEncodable(entry.key) && _isEncodable(entry.value));
+    }
+
+    return false;
+  }
+
+  @override
+  Map<String, dynamic> _takeArguments() {
+    var arguments = <String, dynamic>{
+      'kinds': Int32List.fromList(_kinds),
+      'names': _names,
+      'values': _values,
+    };
+
+    _kinds = [];
+    _names = [];
+    _values = [];
+
+    return arguments;
+  }
+}
+
+/// Buffers network events for the "registerNetworkEvents" method. Buffer
+/// is a bounded ring: only one batch is in flight at a time, and when events
+/// arrive faster than they are delivered, the oldest ones are overwritten.
+/// When "before" event of a request is overwritten, its completion is
+/// dropped as well, so the native side never gets an orphan completion.
+/// The number of dropped events is reported along with the next batch.
+class BugseeNetworkEventBatcher {
+  static const int capacity = 256;
+  static const int flushThreshold = 32;
+  static const Duration flushInterval = Duration(milliseconds: 200);
+
+  final MethodChannel _channel;
+  final List<dynamic> _events = List<dynamic>.filled(capacity, null);
+  int _head = 0;
+  int _count = 0;
+  int _dropped = 0;
+  // requests whose "before" event was overwritten, oldest first
+  final Set<dynamic> _orphanedIds = <dynamic>{};
+  Future<dynamic>? _inFlight;
+  Timer? _flushTimer;
+
+  BugseeNetworkEventBatcher(MethodChannel channel) : _channel = channel;
+
+  void add(dynamic event) {
+    if (_isCompletion(event) && _orphanedIds.remove(event['id'])) {
+      _dropped++;
+      return;
+    }
+
+    if (_count == capacity) {
+      // buffer is full -> overwrite the oldest event
+      _forgetOverwritten(_events[_head]);
+      _events[_head] = event;
+      _head = (_head + 1) % capacity;
+      _dropped++;
+    } else {
+      _events[(_head + _count) % capacity] = event;
+      _count++;
+    }
+
+    _scheduleFlush();
+  }
+
+  void _forgetOverwritten(dynamic event) {
+    if (event is Map && event['type'] == 'before') {
+      _orphanedIds.add(event['id']);
+      // completions of some requests never arrive, hence keep the set bounded
+      if (_orphanedIds.length > capacity) {
+        _orphanedIds.remove(_orphanedIds.first);
+      }
+    }
+  }
+
+  static bool _isCompletion(dynamic event) {
+    return event is Map &&
+        (event['type'] == 'complete' || event['type'] == 'error');
+  }
+
+  void _scheduleFlush() {
+    if (_inFlight != null) {
+      // pending events are sent once the current batch is delivered
+      return;
+    }
+
+    if (_count >= flushThreshold) {
+      _flushUnawaited();
+    } else if (_count > 0) {
+      _flushTimer ??= Timer(flushInterval, _flushUnawaited);
+    }
+  }
+
+  /// Nobody awaits the flushes triggered by the timer or by the buffer
+  /// size, hence their errors are reported here
+  void _flushUnawaited() {
+    flush().catchError((Object error) {
+      debugPrint('Bugsee: failed to send registerNetworkEvents: $error');
+    });
+  }
+
+  Future<void> flush() async {
+    _flushTimer?.cancel();
+    _flushTimer = null;
+
+    while (_inFlight != null) {
+      await _inFlight;
+    }
+
+    if (_count == 0 && _dropped == 0) {
+      return;
+    }
+
+    var events = <dynamic>[];
+    var dropped = _dropped;
+    for (var index = 0; index < _count; index++) {
+      var event = _events[(_head + index) % capacity];
+      // "before" event may be overwritten after its completion was buffered
+      if (_isCompletion(event) && _orphanedIds.remove(event['id'])) {
+        dropped++;
+      } else {
+        events.add(event);
+      }
+    }
+
+    _events.fillRange(0, capacity, null);
+    _head = 0;
+    _count = 0;
+    _dropped = 0;
+
+    _inFlight = _channel.invokeMethod('registerNetworkEvents',
+        <String, dynamic>{'events': events, 'dropped': dropped});
+
+    try {
+      await _inFlight;
+    } finally {
+      _inFlight = null;
+      _scheduleFlush();
+    }
+  }
+}
@@ -1,5 +1,8 @@
 import 'dart:async';
+import 'dart:io';
+import 'dart:typed_data';
 
+import 'package:flutter/foundation.dart';
 import 'package:flutter/services.dart';
 
 import 'enums.dart';
@@ -8,6 +11,8 @@ import 'types.dart';
 
 class BugseeCallbacks {
   final MethodChannel _channel;
+  // channel for passing the bulk data, e.g. attachment streams
+  final MethodChannel _dataChannel;
 
   BugseeLogFilterCallback? _logFilterCallback;
   BugseeNetworkFilterCallback? _bugseeNetworkFilterCallback;
@@ -15,8 +20,12 @@ class BugseeCallbacks {
   BugseeAttachmentsCallback? _bugseeAttachmentsCallback;
   BugseeNewFeedbackMessagesCallback? _bugseeNewFeedbackMessagesCallback;
   BugseeAdditionalDataCaptureCallback? _bugseeAdditionalDataCaptureCallback;
+  Completer<Map<String, dynamic>> _launchReadyCompleter =
+      Completer<Map<String, dynamic>>();
 
-  BugseeCallbacks(MethodChannel channel) : _channel = channel {
+  BugseeCallbacks(MethodChannel channel, [MethodChannel? dataChannel])
+      : _channel = channel,
+        _dataChannel = dataChannel ?? channel {
     _channel.setMethodCallHandler(_onMethodCall);
   }
 
@@ -51,6 +60,22 @@ class BugseeCallbacks {
     _bugseeAdditionalDataCaptureCallback = callback;
   }
 
+  /// Completes once the native side reports the outcome of the launch
+  Future<Map<String, dynamic>> get launchReady => _launchReadyCompleter.future;
+
+  /// Starts waiting for the readiness of the new launch
+  void resetLaunchReady() {
+    if (_launchReadyCompleter.isCompleted) {
+      _launchReadyCompleter = Completer<Map<String, dynamic>>();
+    }
+  }
+
+  void completeLaunchReady(Map<String, dynamic> readiness) {
+    if (!_launchReadyCompleter.isCompleted) {
+      _launchReadyCompleter.complete(readiness);
+    }
+  }
+
   Future<dynamic> triggerNetworkFilterCallback(dynamic originalEvent) async {
     if (_bugseeNetworkFilterCallback != null) {
       try {
@@ -81,6 +106,12 @@ class BugseeCallbacks {
       case "onNetworkEvent":
         return _onNetworkEventCall(call);
 
+      case "onLogEvents":
+        return _onLogEventsFilterCall(call);
+
+      case "onNetworkEvents":
+        return _onNetworkEventsCall(call);
+
       case "onLifecycleEvent":
         return _onLifecycleEventCall(call);
 
@@ -93,6 +124,10 @@ class BugseeCallbacks {
       case "onCaptureAdditionalData":
         return _onCaptureAdditionalData(call);
 
+      case "onLaunchReady":
+        completeLaunchReady(Map<String, dynamic>.from(call.arguments));
+        return Future.value(null);
+
       default:
         return Future.value(null);
     }
@@ -102,9 +137,27 @@ class BugseeCallbacks {
     return triggerNetworkFilterCallback(call.arguments[0]);
   }
 
+  /// Batched version of "onNetworkEvent", results are returned in the
+  /// same order as events
+  Future<dynamic> _onNetworkEventsCall(MethodCall call) async {
+    List<dynamic> events = call.arguments;
+    return Future.wait(events.map(triggerNetworkFilterCallback));
+  }
+
   Future<dynamic> _onLogFilterCall(MethodCall call) async {
-    var text = call.arguments[0];
-    var level = BugseeLogLevel.values[call.arguments[1]];
+    return _filterLogEvent(call.arguments[0], call.arguments[1]);
+  }
+
+  /// Batched version of "onLogEvent", each log line is a [text, level]
+  /// pair and results are returned in the same order as lines
+  Future<dynamic> _onLogEventsFilterCall(MethodCall call) async {
+    List<dynamic> events = call.arguments;
+    return Future.wait(
+        events.map((event) => _filterLogEvent(event[0], event[1])));
+  }
+
+  Future<dynamic> _filterLogEvent(String text, int levelIndex) async {
+    var level = BugseeLogLevel.values[levelIndex];
 
     if (_logFilterCallback != null) {
       try {
@@ -118,7 +171,7 @@ class BugseeCallbacks {
       }
     }
 
-    return Future.value([text, level]);
+    return Future.value([text, level.index]);
   }
 
   Future<dynamic> _onLifecycleEventCall(MethodCall call) async {
@@ -133,16 +186,89 @@ class BugseeCallbacks {
     if (_bugseeAttachmentsCallback != null) {
       var report = BugseeReport(
           call.arguments[0], BugseeSeverityLevel.values[call.arguments[1] - 1]);
+      // native side binds attachment streams to the report, so the ones
+      // left after the report's deadline are discarded
+      int? reportId = call.arguments.length > 2 ? call.arguments[2] : null;
       var attachments = await _bugseeAttachmentsCallback!(report);
       if (attachments != null) {
-        var finalAttachments =
-            attachments.map((a) => [a.name, a.filename, a.data]).toList();
+        var finalAttachments = <List<dynamic>>[];
+        for (var attachment in attachments) {
+          var serializedAttachment =
+              await _serializeAttachment(attachment, reportId);
+          if (serializedAttachment != null) {
+            finalAttachments.add(serializedAttachment);
+          }
+        }
         return Future.value(finalAttachments);
       }
     }
     return Future.value(null);
   }
 
+  /// Converts attachment into [name, filename, data, filePath, streamId]
+  /// form. File and stream attachments are resolved natively on Android,
+  /// while on other platforms they are read into memory here.
+  Future<List<dynamic>?> _serializeAttachment(
+      BugseeAttachment attachment, int? reportId) async {
+    try {
+      if (Platform.isAndroid) {
+        if (attachment.filePath != null) {
+          return [attachment.name, attachment.filename, null,
+              attachment.filePath, null];
+        }
+
+        if (attachment.stream != null && reportId != null) {
+          int? streamId = await _dataChannel.invokeMethod(
+              'beginAttachmentStream', <String, dynamic>{'reportId': reportId});
+          if (streamId != null) {
+            await _writeAttachmentStream(streamId, attachment.stream!);
+            return [attachment.name, attachment.filename, null, null,
+                streamId];
+          }
+        }
+      }
+
+      var data = attachment.data;
+      if (attachment.filePath != null) {
+        data = await File(attachment.filePath!).readAsBytes();
+      } else if (attachment.stream != null) {
+        var builder = BytesBuilder(copy: false);
+        await for (var chunk in attachment.stream!) {
+          builder.add(chunk);
+        }
+        data = builder.takeBytes();
+      }
+
+      return [attachment.name, attachment.filename, data];
+    } catch (ex) {
+      // attachment is skipped, while the rest of them are still sent
+      debugPrint('Bugsee: failed to add attachment ${attachment.name}: $ex');
+      return null;
+    }
+  }
+
+  Future<void> _writeAttachmentStream(
+      int streamId, Stream<List<int>> stream) async {
+    try {
+      await for (var chunk in stream) {
+        bool? acceptsMore = await _dataChannel.invokeMethod(
+            'appendAttachmentStream', <String, dynamic>{
+          'streamId': streamId,
+          'data': chunk is Uint8List ? chunk : Uint8List.fromList(chunk)
+        });
+
+        if (acceptsMore != true) {
+          // size limit is reached, hence stop reading the stream
+          break;
+        }
+      }
+    } catch (ex) {
+      await _dataChannel.invokeMethod('discardAttachmentStream',
+          <String, dynamic>{'streamId': streamId});
+      rethrow;
+    }
+  }
+
   Future<dynamic> _onNewFeedbackMessagesAvailableCall(MethodCall call) async {
     if (_bugseeNewFeedbackMessagesCallback != null) {
       _bugseeNewFeedbackMessagesCallback!(call.arguments[0]);
@@ -170,3 +170,32 @@ enum BugseeVideoMode {
   /// automatically switched to {@link VideoMode#V1}.
   v3
 }
+
+/// Defines how Bugsee handles the item which must be passed to the filter
+/// callback, but didn't fit into the in-flight window or didn't get the
+/// reply in time
+enum BugseeFilterOverflowPolicy {
+  /// Item is passed further as is
+  passThrough,
+
+  /// Item is dropped
+  drop,
+
+  /// Item is passed further, but all its data is removed
+  redactAll
+}
+
+/// Defines how attachments are compressed before they are added to the
+/// report. Already compressed data (archives, images, video, etc.) is left
+/// as is, and compressed attachments get the corresponding extension
+/// appended to their file names
+enum BugseeAttachmentCompression {
+  /// Attachments are not compressed
+  none,
+
+  /// Attachments are compressed into gzip format (".gz" extension)
+  gzip,
+
+  /// Attachments are compressed into zlib format (".zz" extension)
+  deflate
+}
@@ -18,6 +18,10 @@ class BugseeExceptionHandler {
 
   bool get isUnhandledInterceptionActive => _isActive;
 
+  /// Invoked before exception is passed to the native side. Used to flush
+  /// the batched data, so it precedes the exception in the report
+  Future<void> Function()? onBeforeSend;
+
   BugseeExceptionHandler(MethodChannel channel) : _channel = channel;
 
   Future<Null> logException(dynamic exception, bool handled,
@@ -66,6 +70,8 @@ class BugseeExceptionHandler {
       'originalStackTrace': '$originalStackTrace'
     };
 
+    await onBeforeSend?.call();
+
     await _channel.invokeMethod('logException', <String, dynamic>{
       'name': 'FlutterManagedException',
       'reason': json.encode(exceptionData),
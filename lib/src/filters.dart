@@ -0,0 +1,152 @@
+import 'enums.dart';
+
+/// Converts pattern into the form understood by the native side. Strings
+/// are matched as plain substrings, while [RegExp] instances are matched
+/// as regular expressions (note, that native regex dialect may slightly
+/// differ from the Dart one for advanced constructs)
+Map<String, dynamic> _serializePattern(Pattern pattern,
+    {bool caseSensitive = true}) {
+  if (pattern is RegExp) {
+    return <String, dynamic>{
+      'pattern': pattern.pattern,
+      'regex': true,
+      'caseSensitive': pattern.isCaseSensitive,
+    };
+  }
+
+  return <String, dynamic>{
+    'pattern': pattern.toString(),
+    'regex': false,
+    'caseSensitive': caseSensitive,
+  };
+}
+
+List<Map<String, dynamic>> _serializePatterns(List<Pattern>? patterns,
+    {bool caseSensitive = true}) {
+  return (patterns ?? const <Pattern>[])
+      .map((pattern) =>
+          _serializePattern(pattern, caseSensitive: caseSensitive))
+      .toList();
+}
+
+/// Declarative log filter which is evaluated natively for every captured
+/// log line, without calling into Dart. Rules are applied in the following
+/// order:
+///
+/// 1. lines less severe than [minLevel] are dropped;
+/// 2. lines matching any of [drop] patterns are dropped;
+/// 3. all the matches of [redact] patterns are replaced with [replacement];
+/// 4. text is truncated to [maxLength] characters.
+///
+/// Log filter callback (see [Bugsee.setLogFilter]) is invoked only for the
+/// lines which match any of [escalate] patterns (matching is done before
+/// redaction).
+class BugseeLogFilterRules {
+  final BugseeLogLevel? minLevel;
+  final List<Pattern>? drop;
+  final List<Pattern>? redact;
+  final String replacement;
+  final List<Pattern>? escalate;
+  final int? maxLength;
+
+  const BugseeLogFilterRules(
+      {this.minLevel,
+      this.drop,
+      this.redact,
+      this.replacement = '<redacted>',
+      this.escalate,
+      this.maxLength});
+
+  Map<String, dynamic> toMap() {
+    return <String, dynamic>{
+      'minLevel': minLevel?.index ?? 0,
+      'drop': _serializePatterns(drop),
+      'redact': _serializePatterns(redact),
+      'replacement': replacement,
+      'escalate': _serializePatterns(escalate),
+      'maxLength': maxLength ?? 0,
+    };
+  }
+}
+
+/// Declarative network events redaction which is evaluated natively for
+/// every captured network event, so request and response bodies don't have
+/// to be passed to Dart:
+///
+/// 1. values of the [headers] with matching names are replaced with
+///    [replacement] (string patterns are case-insensitive here);
+/// 2. values of the URL [queryParameters] with matching names are replaced;
+/// 3. values of JSON bodies selected by [bodyPaths] are replaced. Paths
+///    support "$.key", "$['key']", "$[0]", "$[*]", "$.*" and "$..key"
+///    selectors, while path without leading "$" matches the member
+///    with such name at any depth. Paths apply only to JSON bodies, i.e.
+///    ones with JSON Content-Type or starting with "{" or "[", other
+///    bodies are left to [maxBodyLength]. JSON bodies which can't be
+///    scanned completely (not an object or array, malformed, truncated or
+///    nested deeper than 256 levels) are replaced with [replacement] as a
+///    whole;
+/// 4. body is truncated to [maxBodyLength] characters.
+///
+/// Names must match the patterns fully. Network filter callback (see
+/// [Bugsee.setNetworkFilter]) is invoked only for events which URLs
+/// match any of [escalate] patterns (matching is done before redaction).
+class BugseeNetworkRedactionRules {
+  final List<Pattern>? headers;
+  final List<Pattern>? queryParameters;
+  final List<String>? bodyPaths;
+  final String replacement;
+  final List<Pattern>? escalate;
+  final int? maxBodyLength;
+
+  const BugseeNetworkRedactionRules(
+      {this.headers,
+      this.queryParameters,
+      this.bodyPaths,
+      this.replacement = '<redacted>',
+      this.escalate,
+      this.maxBodyLength});
+
+  Map<String, dynamic> toMap() {
+    return <String, dynamic>{
+      'headers': _serializePatterns(headers, caseSensitive: false),
+      'queryParameters': _serializePatterns(queryParameters),
+      'bodyPaths': bodyPaths ?? const <String>[],
+      'replacement': replacement,
+      'escalate': _serializePatterns(escalate),
+      'maxBodyLength': maxBodyLength ?? 0,
+    };
+  }
+}
+
+/// Limits the number of items which wait for the reply from the filter
+/// callback (see [Bugsee.setNetworkFilter], [Bugsee.setLogFilter] and
+/// [Bugsee.setAttachmentsCallback]). Items which don't fit into the window
+/// of [maxInFlight] items, or don't get the reply within [timeout], are
+/// handled according to [overflowPolicy]. Reports which don't get the
+/// attachments in time are sent without them.
+///
+/// Default limits don't drop anything: there is no in-flight limit and no
+/// deadline, and even when they are set, items are dropped only if
+/// [overflowPolicy] is explicitly set to [BugseeFilterOverflowPolicy.drop].
+class BugseeFilterLimits {
+  /// Zero removes the limit
+  final int maxInFlight;
+
+  /// Null means waiting for the reply indefinitely
+  final Duration? timeout;
+
+  final BugseeFilterOverflowPolicy overflowPolicy;
+
+  const BugseeFilterLimits(
+      {this.maxInFlight = 0,
+      this.timeout,
+      this.overflowPolicy = BugseeFilterOverflowPolicy.passThrough});
+
+  Map<String, dynamic> toMap() {
+    return <String, dynamic>{
+      'maxInFlight': maxInFlight,
+      'timeoutMs': timeout?.inMilliseconds ?? 0,
+      'overflowPolicy': overflowPolicy.index,
+    };
+  }
+}
@@ -4,6 +4,7 @@ import 'dart:async';
 import 'dart:convert';
 import 'dart:core';
 import 'dart:io';
+import 'dart:typed_data';
 
 import 'package:uuid/uuid.dart';
 
@@ -12,16 +13,27 @@ import 'state.dart';
 
 const Uuid _globalUuid = const Uuid();
 
+/// Puts the body into the event data. On Android body is passed as raw
+/// bytes and decoded natively within the body size budget, while other
+/// platforms expect the text
+void _putBody(dynamic eventData, Uint8List body, ContentType? contentType) {
+  if (Platform.isAndroid) {
+    eventData['bodyBytes'] = body;
+    eventData['contentType'] = contentType?.toString();
+  } else {
+    eventData['body'] = utf8.decode(body, allowMalformed: true);
+  }
+}
+
 void _registerBeginEvent(_BugseeHttpClientRequest request,
-    [String? noBodyReason, String? body, int? timestamp]) {
+    [String? noBodyReason, Uint8List? body, int? timestamp]) {
   dynamic eventData = <String, dynamic>{
     'id': request.requestID,
     'timestamp': timestamp ?? request.timestamp,
     'url': request.uri.toString(),
     'method': request.method,
     'type': 'before',
-    'size': request.contentLength,
-    'body': body
+    'size': request.contentLength
   };
 
   eventData['isSupplement'] = (noBodyReason != null) || (body != null);
@@ -29,7 +41,7 @@ void _registerBeginEvent(_BugseeHttpClientRequest request,
   if (noBodyReason != null) {
     eventData['noBodyReason'] = noBodyReason;
   } else if (body != null) {
-    eventData['body'] = body;
+    _putBody(eventData, body, request.headers.contentType);
   }
 
   dynamic headers = <String, dynamic>{};
@@ -43,7 +55,7 @@ void _registerBeginEvent(_BugseeHttpClientRequest request,
 }
 
 void _registerCompleteEvent(_BugseeHttpClientResponse response,
-    [String? noBodyReason, String? body, int? timestamp]) {
+    [String? noBodyReason, Uint8List? body, int? timestamp]) {
   var isError = response.statusCode >= 400;
   dynamic eventData = <String, dynamic>{
     'id': response.requestID,
@@ -60,7 +72,7 @@ void _registerCompleteEvent(_BugseeHttpClientResponse response,
   if (noBodyReason != null) {
     eventData['noBodyReason'] = noBodyReason;
   } else if (body != null) {
-    eventData['body'] = body;
+    _putBody(eventData, body, response.headers.contentType);
   }
 
   if (isError) {
@@ -111,7 +123,7 @@ _BugseeHttpClientResponse _wrapResponse(
 
 void _readRequestBody(_BugseeHttpClientRequest request) {
   String? noBodyReason;
-  String? body;
+  Uint8List? body;
   var options = getLaunchOptions()!;
 
   if (request.contentLength > options.maxNetworkBodySize) {
@@ -129,7 +141,7 @@ void _readRequestBody(_BugseeHttpClientRequest request) {
 
   if (noBodyReason == null) {
     try {
-      body = request._sendBuffer.toString();
+      body = request._sendBuffer!.takeBytes();
     } catch (ex) {
       noBodyReason = 'cant_read_data';
     }
@@ -140,7 +152,7 @@ void _readRequestBody(_BugseeHttpClientRequest request) {
 
 void _readResponseBody(_BugseeHttpClientResponse response) {
   String? noBodyReason;
-  String? body;
+  Uint8List? body;
   var options = getLaunchOptions()!;
 
   if (response.contentLength > options.maxNetworkBodySize) {
@@ -158,7 +170,7 @@ void _readResponseBody(_BugseeHttpClientResponse response) {
 
   if (noBodyReason == null) {
     try {
-      body = response._receiveBuffer?.toString();
+      body = response._receiveBuffer!.takeBytes();
     } catch (ex) {
       noBodyReason = 'cant_read_data';
     }
@@ -320,7 +332,7 @@ class _BugseeHttpClientRequest extends HttpClientRequest {
   final String requestID;
   final int timestamp;
   final HttpClientRequest _httpClientRequest;
-  StringBuffer? _sendBuffer = StringBuffer();
+  BytesBuilder? _sendBuffer = BytesBuilder();
 
   _BugseeHttpClientRequest(this._httpClientRequest, [int? eventTimestamp])
       : requestID = _globalUuid.v4(),
@@ -354,9 +366,16 @@ class _BugseeHttpClientRequest extends HttpClientRequest {
   }
 
   void _addItems(List<int> data) {
+    if (this.headers.contentType != ContentType.binary) {
+      _sendBuffer?.add(data);
+      _checkAndResetBufferIfRequired();
+    }
+  }
+
+  void _addText(String text) {
     if (this.headers.contentType != ContentType.binary) {
       try {
-        _sendBuffer?.write(utf8.decode(data));
+        _sendBuffer?.add(encoding.encode(text));
       } catch (ex) {}
       _checkAndResetBufferIfRequired();
     }
@@ -440,45 +459,25 @@ class _BugseeHttpClientRequest extends HttpClientRequest {
   @override
   void write(Object? object) {
     _httpClientRequest.write(object);
-    if (headers.contentType != ContentType.binary) {
-      try {
-        _sendBuffer?.write(object);
-      } catch (ex) {}
-      _checkAndResetBufferIfRequired();
-    }
+    _addText('$object');
   }
 
   @override
   void writeAll(Iterable objects, [String separator = ""]) {
     _httpClientRequest.writeAll(objects);
-    if (headers.contentType != ContentType.binary) {
-      try {
-        _sendBuffer?.writeAll(objects, separator);
-      } catch (ex) {}
-      _checkAndResetBufferIfRequired();
-    }
+    _addText(objects.join(separator));
   }
 
   @override
   void writeCharCode(int charCode) {
     _httpClientRequest.writeCharCode(charCode);
-    if (headers.contentType != ContentType.binary) {
-      try {
-        _sendBuffer?.writeCharCode(charCode);
-      } catch (ex) {}
-      _checkAndResetBufferIfRequired();
-    }
+    _addText(String.fromCharCode(charCode));
   }
 
   @override
   void writeln([Object? object = ""]) {
     _httpClientRequest.writeln(object);
-    if (headers.contentType != ContentType.binary) {
-      try {
-        _sendBuffer?.writeln(object);
-      } catch (ex) {}
-      _checkAndResetBufferIfRequired();
-    }
+    _addText('$object\n');
   }
 }
 
@@ -489,7 +488,7 @@ class _BugseeHttpClientResponse extends HttpClientResponse {
   final String originalMethod;
   final int timestamp;
   Stream<List<int>>? _wrapperStream;
-  StringBuffer? _receiveBuffer = StringBuffer();
+  BytesBuilder? _receiveBuffer = BytesBuilder();
 
   _BugseeHttpClientResponse(this._httpClientResponse, this.requestID,
       this.originalUrl, this.originalMethod, this.timestamp) {
@@ -506,9 +505,7 @@ class _BugseeHttpClientResponse extends HttpClientResponse {
 
   void _addItems(List<int> data) {
     if (this.headers.contentType != ContentType.binary) {
-      try {
-        _receiveBuffer?.write(utf8.decode(data));
-      } catch (ex) {}
+      _receiveBuffer?.add(data);
       _checkAndResetBufferIfRequired();
     }
   }
@@ -41,7 +41,28 @@ class BugseeAttachment {
   final String filename;
   final Uint8List data;
 
-  BugseeAttachment(this.name, this.filename, this.data);
+  /// Path of the file to attach. On Android the file is copied natively,
+  /// so its content is never loaded into memory
+  final String? filePath;
+
+  /// Attachment content which is passed to the native side chunk by
+  /// chunk (on Android), so it's never held in memory as a whole
+  final Stream<List<int>>? stream;
+
+  BugseeAttachment(this.name, this.filename, this.data)
+      : filePath = null,
+        stream = null;
+
+  BugseeAttachment.fromFile(this.name, this.filename, String path)
+      : data = Uint8List(0),
+        filePath = path,
+        stream = null;
+
+  BugseeAttachment.fromStream(
+      this.name, this.filename, Stream<List<int>> dataStream)
+      : data = Uint8List(0),
+        filePath = null,
+        stream = dataStream;
 }
 
 typedef BugseeAttachmentsCallback = Future<List<BugseeAttachment>?> Function(
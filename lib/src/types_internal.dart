@@ -1,4 +1,6 @@
+import 'dart:convert';
 import 'dart:math';
+import 'dart:typed_data';
 
 import 'package:flutter/material.dart';
 
@@ -7,6 +9,9 @@ import 'types.dart';
 class BugseeNetworkEventImpl extends BugseeNetworkEvent {
   String _internalMethod = '';
   String _internalEventType = "";
+  // body decoded from the raw bytes, used to detect whether filter
+  // changed it, in which case the raw bytes are replaced with the text
+  String? _decodedBody;
   String get method => _internalMethod;
   String get type => _internalEventType;
 
@@ -22,6 +27,12 @@ class BugseeNetworkEventImpl extends BugseeNetworkEvent {
     wrappedEvent._internalEventType = event['type'];
     wrappedEvent.url = event['url'];
     wrappedEvent.body = event['body'];
+    if (event['bodyBytes'] is Uint8List) {
+      // raw body is decoded only when there is a filter which needs it
+      wrappedEvent._decodedBody =
+          utf8.decode(event['bodyBytes'], allowMalformed: true);
+      wrappedEvent.body = wrappedEvent._decodedBody;
+    }
     wrappedEvent.redirectUrl = event['redirectUrl'];
     wrappedEvent.headers = event['headers'];
 
@@ -37,7 +48,14 @@ class BugseeNetworkEventImpl extends BugseeNetworkEvent {
     }
 
     originalEvent['url'] = e.url;
-    originalEvent['body'] = e.body;
+    // unchanged body keeps being passed as raw bytes
+    var isRawBodyKept = e is BugseeNetworkEventImpl &&
+        e._decodedBody != null &&
+        identical(e.body, e._decodedBody);
+    if (!isRawBodyKept) {
+      originalEvent.remove('bodyBytes');
+      originalEvent['body'] = e.body;
+    }
     originalEvent['redirectUrl'] = e.redirectUrl;
     originalEvent['headers'] = e.headers;
 
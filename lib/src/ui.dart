@@ -10,6 +10,14 @@ import 'dart:io';
 import './callbacks.dart';
 
 class BugseeViewManager {
+  // Android reads secure rectangles straight from the raw int32 buffer,
+  // which lets it skip the standard codec on every frame
+  static const BasicMessageChannel<ByteData> _secureRectsChannel =
+      BasicMessageChannel<ByteData>('bugsee/secure_rects', BinaryCodec());
+  static const int _secureRectsSnapshot = 0;
+  static const int _secureRectsDelta = 1;
+  static const int _secureRectsResyncReply = 1;
+
   final MethodChannel _channel;
 
   BugseeViewManager(MethodChannel channel) : _channel = channel;
@@ -19,6 +27,13 @@ class BugseeViewManager {
   bool _areViewsTracked = false;
   double _devicePixelRatio = 1.0;
   int lastUpdateTimestamp = 0;
+  // bounds last sent to Android keyed by element ID. Used to send only
+  // the changed rectangles rather than the full list on every frame
+  Map<int, List<int>> _sentBounds = {};
+  int _secureRectsSequence = 0;
+  bool _secureRectsResyncRequired = true;
+  // whether the empty delta must be sent to collapse the moved rectangles
+  bool _secureRectsCollapsePending = false;
   // Stopwatch _stopwatch = Stopwatch();
 
   List<double> _rectToList(Rect? bounds) {
@@ -136,16 +151,93 @@ class BugseeViewManager {
   }
 
   void _sendBoundsData(List<int> boundsData) {
+    if (Platform.isAndroid) {
+      _sendBoundsDelta(boundsData);
+      return;
+    }
+
     if (boundsData.length > 0) {
       _boundsWasFilled = true;
-      _channel.invokeMethod(
-          "setSecureRectsInternal", {'bounds': Int32List.fromList(boundsData)});
+      _postBoundsData(Int32List.fromList(boundsData));
     } else if (_boundsWasFilled) {
       // we need to send empty data to instruct underlying SDK
       // to clear the internal rectangles list
       _boundsWasFilled = false;
-      _channel.invokeMethod("setSecureRectsInternal", {'bounds': null});
+      _postBoundsData(null);
+    }
+  }
+
+  void _postBoundsData(Int32List? bounds) {
+    _channel.invokeMethod("setSecureRectsInternal", {'bounds': bounds});
+  }
+
+  bool _areBoundsEqual(List<int> a, List<int> b) {
+    return a[0] == b[0] && a[1] == b[1] && a[2] == b[2] && a[3] == b[3];
+  }
+
+  void _sendBoundsDelta(List<int> boundsData) {
+    Map<int, List<int>> currentBounds = {};
+    for (var i = 0; i + 4 < boundsData.length; i += 5) {
+      currentBounds[boundsData[i]] = boundsData.sublist(i + 1, i + 5);
+    }
+
+    if (currentBounds.isEmpty && _sentBounds.isEmpty) {
+      return;
     }
+
+    // sequence is filled in once it's clear the message is sent
+    List<int> message;
+
+    if (_secureRectsResyncRequired || currentBounds.isEmpty) {
+      // full snapshot, which also clears the rectangles when empty
+      message = [_secureRectsSnapshot, 0, ...boundsData];
+      _secureRectsResyncRequired = false;
+      _secureRectsCollapsePending = currentBounds.isNotEmpty;
+    } else {
+      // delta: [removed count, removed IDs..., inserted/moved entries...]
+      var removedIds = _sentBounds.keys
+          .where((id) => !currentBounds.containsKey(id))
+          .toList();
+      message = [_secureRectsDelta, 0, removedIds.length, ...removedIds];
+
+      currentBounds.forEach((id, bounds) {
+        var sentBounds = _sentBounds[id];
+        if (sentBounds == null || !_areBoundsEqual(sentBounds, bounds)) {
+          message.add(id);
+          message.addAll(bounds);
+        }
+      });
+
+      if (message.length == 3) {
+        // nothing changed. Moved rectangles still cover their previous
+        // positions natively though, hence a single empty delta is sent
+        // after the changes to collapse them, and nothing after that
+        if (!_secureRectsCollapsePending) {
+          return;
+        }
+        _secureRectsCollapsePending = false;
+      } else {
+        _secureRectsCollapsePending = true;
+        if (message.length >= boundsData.length + 2) {
+          // most of the rectangles changed, snapshot is cheaper
+          message = [_secureRectsSnapshot, 0, ...boundsData];
+        }
+      }
+    }
+
+    message[1] = ++_secureRectsSequence;
+    _sentBounds = currentBounds;
+
+    var payload = Int32List.fromList(message);
+    _secureRectsChannel.send(ByteData.view(payload.buffer)).then((reply) {
+      // native side lost track of the state (e.g. it was re-created),
+      // hence it needs the full snapshot to continue
+      if (reply != null &&
+          reply.lengthInBytes >= 4 &&
+          reply.getInt32(0, Endian.host) == _secureRectsResyncReply) {
+        _secureRectsResyncRequired = true;
+      }
+    });
   }
 
   void onFrame(timeStamp) {